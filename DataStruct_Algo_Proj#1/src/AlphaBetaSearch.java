@@ -0,0 +1,349 @@
+import java.util.Arrays;
+
+/**
+ * The AlphaBetaSearch class explores the game tree with alpha/beta pruning to
+ * choose the best move for the computer. It plays the moves on its own
+ * Configurations board and caches the searched configurations in a
+ * TranspositionTable, which may be shared with other searches.
+ *
+ * Moves are tried best first so cuts happen early: the best reply stored in
+ * the transposition table (the principal variation of the previous iteration
+ * or turn), then the two killer moves that last caused a cut on the same
+ * level, then the remaining moves by their history score. With a time budget
+ * the search deepens one level at a time and returns the move of the deepest
+ * iteration that finished in time.
+ *
+ * If an OpeningBook is set, a computer move on a configuration of the book is
+ * answered from it without searching.
+ *
+ * Each search counts the plays it scores, its cuts on every level and its
+ * table hits, misses and collisions in plain fields, and adds them to its
+ * SearchMetrics, if one is set, once per computer move.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class AlphaBetaSearch implements MoveChooser {
+    public static final char COMPUTER = 'O';
+    public static final char HUMAN = 'X';
+
+    private static final int PV_ORDER = Integer.MAX_VALUE; // order key of the table move
+    private static final int KILLER_ORDER = Integer.MAX_VALUE - 2; // order key of the first killer
+
+    private Configurations configs; // board the moves are played on
+    private TranspositionTable configurations; // results of the searched configurations
+    private int board_size; // size of game board
+    private int max_level; // maximum level of the game tree that will be explored
+    private OpeningBook book; // solved configurations, null if there is none
+
+    private int[][] moves; // squares to try on each level
+    private int[][] order; // order key of each of those squares
+    private int[][] killers; // two squares that last caused a cut on each level
+    private int[][] history; // cut counts of each square for 'X' (0) and 'O' (1)
+
+    private long deadline; // System.nanoTime() the search has to stop at
+    private boolean aborted; // true once the deadline has passed
+    private long nodes; // plays scored, the clock is read every 1024 plays
+
+    private SearchMetrics metrics; // counters the search adds to, null for none
+    private long[] levelCutoffs; // alpha/beta cuts on each level since the last flush
+    private long tableHits; // table probes that replaced a search since the last flush
+    private long tableMisses; // table probes that did not since the last flush
+    private long tableCollisions; // table entries replaced by another configuration since the last flush
+
+    /**
+     * @param configs        board the moves are played on
+     * @param configurations transposition table used to cache the results
+     * @param board_size     size of game board
+     * @param max_level      maximum level of the game tree that will be explored
+     */
+    public AlphaBetaSearch(Configurations configs, TranspositionTable configurations, int board_size,
+            int max_level) {
+        this.configs = configs;
+        this.configurations = configurations;
+        this.board_size = board_size;
+        this.max_level = max_level;
+
+        int squares = board_size * board_size;
+        this.moves = new int[squares + 1][squares];
+        this.order = new int[squares + 1][squares];
+        this.killers = new int[squares + 1][2];
+        this.history = new int[2][squares];
+        this.levelCutoffs = new long[squares + 1];
+        this.deadline = Long.MAX_VALUE;
+    }
+
+    /* Explore max_level levels, or deepen until the time budget runs out */
+    public PosPlay choosePlay(char symbol, long budgetMillis) {
+        if (budgetMillis > 0)
+            return computerPlay(symbol, budgetMillis);
+        return computerPlay(symbol, Evaluator.BELOW_ALL, Evaluator.ABOVE_ALL, 0);
+    }
+
+    /* Explore the game tree and choose the best move for the computer */
+    public PosPlay computerPlay(char symbol, int highest_score,
+            int lowest_score, int level) {
+        if (level == 0 && symbol == COMPUTER && book != null) { /* Answer from the opening book */
+            PosPlay play = book.play(configs, board_size);
+            if (play != null)
+                return play;
+        }
+        if (level == 0) /* New search, older entries are replaced first */
+            newSearch();
+        long start = System.nanoTime();
+        PosPlay play = search(symbol, highest_score, lowest_score, level, bestMove(configs.getHash()));
+        if (level == 0 && metrics != null) {
+            flushMetrics();
+            metrics.recordMove(System.nanoTime() - start);
+        }
+        return play;
+    }
+
+    /**
+     * Explore the game tree one level deeper at a time until the time budget
+     * runs out or max_level is reached, and choose the best move for symbol.
+     * The first iteration always finishes so a move is always returned.
+     *
+     * @param symbol       player to move
+     * @param budgetMillis time budget of the move in milliseconds
+     * @return best play of the deepest iteration that finished in time
+     */
+    public PosPlay computerPlay(char symbol, long budgetMillis) {
+        int levels = max_level; // deepest iteration
+        int empty = 0;
+        PosPlay best = null;
+
+        if (symbol == COMPUTER && book != null) { // answer from the opening book
+            best = book.play(configs, board_size);
+            if (best != null)
+                return best;
+        }
+        newSearch();
+        for (int row = 0; row < board_size; row++)
+            for (int column = 0; column < board_size; column++)
+                if (configs.squareIsEmpty(row, column))
+                    empty++;
+
+        long start = System.nanoTime();
+        for (int level = 0; level <= levels; level++) {
+            max_level = level;
+            // the first iteration only looks one play ahead and is never interrupted
+            deadline = level == 0 ? Long.MAX_VALUE : start + budgetMillis * 1000000L;
+
+            PosPlay result = search(symbol, Evaluator.BELOW_ALL, Evaluator.ABOVE_ALL, 0, bestMove(configs.getHash()));
+            if (aborted)
+                break; // keep the result of the last finished iteration
+            best = result;
+
+            if (best.getRow() != -1)
+                configurations.store(configs.getHash(), best.getScore(), level + 1, TranspositionTable.EXACT,
+                        configs.toCanonical(best.getRow() * board_size + best.getCol()));
+
+            // a win or loss is already proven, or every remaining square was explored
+            if (best.getScore() == Evaluator.COMPUTER_WINS || best.getScore() == Evaluator.HUMAN_WINS
+                    || level >= empty - 1)
+                break;
+        }
+
+        max_level = levels;
+        deadline = Long.MAX_VALUE;
+        aborted = false;
+        if (metrics != null) {
+            flushMetrics();
+            metrics.recordMove(System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    // sets the opening book computer moves are answered from, null for none
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    // sets the counters the search adds to, null for none
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // adds the counts since the last flush to the metrics and starts counting again
+    public void flushMetrics() {
+        if (metrics != null)
+            metrics.add(nodes, levelCutoffs, tableHits, tableMisses, tableCollisions);
+        nodes = 0;
+        Arrays.fill(levelCutoffs, 0);
+        tableHits = 0;
+        tableMisses = 0;
+        tableCollisions = 0;
+    }
+
+    /**
+     * Sets the time the search has to stop at, a search that runs past it
+     * returns early and isAborted becomes true
+     *
+     * @param deadline value of System.nanoTime() to stop at
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+        this.aborted = false;
+    }
+
+    // returns true if the last search was stopped by its deadline, its result must not be used
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    // starts a new search: forgets the killer moves and halves the history scores
+    private void newSearch() {
+        configurations.newSearch();
+        for (int[] levelKillers : killers) {
+            levelKillers[0] = -1;
+            levelKillers[1] = -1;
+        }
+        for (int[] sideHistory : history)
+            for (int i = 0; i < sideHistory.length; i++)
+                sideHistory[i] >>= 1;
+        aborted = false;
+    }
+
+    // returns the best reply stored in the table for the configuration or -1, the table keeps
+    // squares of the canonical variant of the board
+    private int bestMove(long key) {
+        long entry = configurations.probe(key);
+        return entry == 0 ? -1 : configs.fromCanonical(TranspositionTable.bestMove(entry));
+    }
+
+    /**
+     * alpha/beta search of the current configuration
+     *
+     * @param pvMove square to try first, -1 if there is none
+     */
+    private PosPlay search(char symbol, int highest_score,
+            int lowest_score, int level, int pvMove) {
+
+        char opponent; // Opponent's symbol
+        int score; // Score of a play
+
+        int bestRow = -1;
+        int bestColumn = -1; // Position of best play
+
+        int value;
+        int count = 0; // number of moves on this level
+        int[] levelMoves = moves[level];
+        int[] levelOrder = order[level];
+        int[] levelKillers = killers[level];
+        int[] sideHistory = history[symbol == COMPUTER ? 1 : 0];
+
+        if (symbol == COMPUTER) {
+            opponent = HUMAN;
+            value = Evaluator.BELOW_ALL;
+        } else {
+            opponent = COMPUTER;
+            value = Evaluator.ABOVE_ALL;
+        }
+
+        /* Collect the empty squares with the key they are ordered by */
+        for (int row = 0; row < board_size; row++)
+            for (int column = 0; column < board_size; column++) {
+                if (configs.squareIsEmpty(row, column)) { // Empty position
+                    int square = row * board_size + column;
+                    levelMoves[count] = square;
+                    if (square == pvMove)
+                        levelOrder[count] = PV_ORDER;
+                    else if (square == levelKillers[0])
+                        levelOrder[count] = KILLER_ORDER;
+                    else if (square == levelKillers[1])
+                        levelOrder[count] = KILLER_ORDER - 1;
+                    else
+                        levelOrder[count] = sideHistory[square];
+                    count++;
+                }
+            }
+
+        for (int i = 0; i < count; i++) {
+            /* Bring the remaining move with the highest key to position i */
+            int next = i;
+            for (int j = i + 1; j < count; j++)
+                if (levelOrder[j] > levelOrder[next])
+                    next = j;
+            int square = levelMoves[next];
+            levelMoves[next] = levelMoves[i];
+            levelOrder[next] = levelOrder[i];
+            levelMoves[i] = square;
+
+            int row = square / board_size;
+            int column = square % board_size;
+            score = playScore(row, column, symbol, opponent, highest_score, lowest_score, level);
+            if (aborted)
+                return new PosPlay(value, bestRow, bestColumn);
+
+            if ((symbol == COMPUTER && score > value) ||
+                    (symbol == HUMAN && score < value)) {
+                bestRow = row;
+                bestColumn = column;
+                value = score;
+
+                /* Alpha/beta cut */
+                if (symbol == COMPUTER && value > highest_score)
+                    highest_score = value;
+                else if (symbol == HUMAN && value < lowest_score)
+                    lowest_score = value;
+
+                if (highest_score >= lowest_score) {
+                    levelCutoffs[level]++;
+                    /* Remember the move that caused the cut */
+                    if (square != levelKillers[0]) {
+                        levelKillers[1] = levelKillers[0];
+                        levelKillers[0] = square;
+                    }
+                    int remaining = max_level - level + 1;
+                    sideHistory[square] += remaining * remaining;
+                    return new PosPlay(value, bestRow, bestColumn);
+                }
+            }
+        }
+        return new PosPlay(value, bestRow, bestColumn);
+    }
+
+    /**
+     * Plays symbol on the empty square (row, column), scores the resulting
+     * configuration and takes the play back.
+     *
+     * @return score of the play, only a bound if it falls outside the
+     *         (highest_score, lowest_score) window
+     */
+    public int playScore(int row, int column, char symbol, char opponent, int highest_score,
+            int lowest_score, int level) {
+        PosPlay reply; // Opponent's best reply
+        int score;
+        int depth; // Levels still to be explored below the play
+        long entry; // Transposition table entry of the configuration
+
+        if ((++nodes & 1023) == 0 && System.nanoTime() > deadline)
+            aborted = true;
+
+        configs.savePlay(row, column, symbol); // Store next play
+        if (configs.winsAt(row, column, symbol) || configs.isDraw() || (level >= max_level))
+            // Game ending situation or max number of levels reached
+            score = configs.evaluate();
+        else {
+            depth = max_level - level;
+            entry = configurations.probe(configs.getHash());
+            if (TranspositionTable.usable(entry, depth, highest_score, lowest_score)) {
+                score = TranspositionTable.score(entry);
+                tableHits++;
+            } else {
+                tableMisses++;
+                reply = search(opponent, highest_score, lowest_score, level + 1,
+                        entry == 0 ? -1 : configs.fromCanonical(TranspositionTable.bestMove(entry)));
+                score = reply.getScore();
+                /* Scores outside the window are only bounds because of cuts */
+                if (!aborted)
+                    tableCollisions += configurations.store(configs.getHash(), score, depth,
+                            TranspositionTable.boundOf(score, highest_score, lowest_score),
+                            configs.toCanonical(reply.getRow() == -1 ? -1 : reply.getRow() * board_size + reply.getCol()));
+            }
+        }
+        configs.savePlay(row, column, ' ');
+        return score;
+    }
+}
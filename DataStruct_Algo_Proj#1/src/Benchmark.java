@@ -0,0 +1,263 @@
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Random;
+
+/**
+ * Benchmark program for the dictionaries and the game tree search. Each
+ * benchmark is run for a number of warmup iterations that are thrown away and
+ * then for a number of measured iterations; the throughput of every benchmark
+ * is written as one CSV line so runs can be compared to catch regressions.
+ *
+ * To run the program type: java Benchmark [filter] [output.csv] where filter
+ * only runs the benchmarks whose name contains it ("all" runs every
+ * benchmark) and output.csv is the file the results are written to (standard
+ * output by default).
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class Benchmark {
+    private static final int WARMUP_ITERATIONS = 5; // iterations thrown away while the JIT compiles
+    private static final int MEASURED_ITERATIONS = 10; // iterations the results are taken from
+    private static final long ITERATION_NANOS = 200000000L; // minimum length of one iteration
+
+    private static volatile long sink; // results are written here so the JIT cannot drop the work
+
+    private static String filter; // only benchmarks whose name contains it are run
+    private static PrintStream out; // CSV output
+
+    /*
+     * A benchmarked operation, run returns a value that is fed to the sink
+     */
+    private interface Operation {
+        long run();
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        filter = args.length > 0 && !args[0].equals("all") ? args[0] : "";
+        out = args.length > 1 ? new PrintStream(args[1]) : System.out;
+        out.println("benchmark,params,ops_per_sec,error_ops_per_sec,iterations");
+
+        hashDictionaryBenchmarks();
+        configurationsBenchmarks();
+        searchBenchmarks();
+
+        out.flush();
+        if (out != System.out)
+            out.close();
+    }
+
+    /*
+     * HashDictionary put/get/remove at different load factors (records per
+     * bucket), and the open addressing and Zobrist keyed tables for comparison.
+     * The HashDictionary tables are made with no maximum load factor so they
+     * never grow and stay at the load factor of the benchmark
+     */
+    private static void hashDictionaryBenchmarks() {
+        final int records = 10000;
+        final String[] keys = new String[records];
+        final long[] longKeys = new long[records];
+        Random random = new Random(2210);
+        for (int i = 0; i < records; i++) {
+            keys[i] = randomBoard(random, 25);
+            longKeys[i] = random.nextLong();
+        }
+
+        for (final double loadFactor : new double[] { 0.25, 0.5, 1.0, 2.0, 4.0 }) {
+            final int buckets = (int) (records / loadFactor);
+            String params = "records=" + records + ";loadFactor=" + loadFactor;
+
+            run("HashDictionary.put", params, records, () -> {
+                HashDictionary dict = new HashDictionary(buckets, Double.POSITIVE_INFINITY);
+                long collisions = 0;
+                for (int i = 0; i < records; i++)
+                    collisions += dict.put(new Data(keys[i], i & 3));
+                return collisions;
+            });
+
+            final HashDictionary filled = new HashDictionary(buckets, Double.POSITIVE_INFINITY);
+            for (int i = 0; i < records; i++)
+                filled.put(new Data(keys[i], i & 3));
+            run("HashDictionary.get", params, records, () -> {
+                long total = 0;
+                for (int i = 0; i < records; i++)
+                    total += filled.get(keys[i]);
+                return total;
+            });
+
+            run("HashDictionary.remove", params, records, () -> {
+                HashDictionary dict = new HashDictionary(buckets, Double.POSITIVE_INFINITY);
+                for (int i = 0; i < records; i++)
+                    dict.put(new Data(keys[i], i & 3));
+                for (int i = 0; i < records; i++)
+                    dict.remove(keys[i]);
+                return dict.numRecords();
+            });
+        }
+
+        String params = "records=" + records;
+        run("OpenHashDictionary.put", params, records, () -> {
+            OpenHashDictionary dict = new OpenHashDictionary(records);
+            long collisions = 0;
+            for (int i = 0; i < records; i++)
+                collisions += dict.put(new Data(keys[i], i & 3));
+            return collisions;
+        });
+
+        final OpenHashDictionary open = new OpenHashDictionary(records);
+        for (int i = 0; i < records; i++)
+            open.put(new Data(keys[i], i & 3));
+        run("OpenHashDictionary.get", params, records, () -> {
+            long total = 0;
+            for (int i = 0; i < records; i++)
+                total += open.get(keys[i]);
+            return total;
+        });
+
+        run("LongHashDictionary.put", params, records, () -> {
+            LongHashDictionary dict = new LongHashDictionary(records);
+            long collisions = 0;
+            for (int i = 0; i < records; i++)
+                collisions += dict.put(longKeys[i], i & 3);
+            return collisions;
+        });
+
+        final LongHashDictionary zobrist = new LongHashDictionary(records);
+        for (int i = 0; i < records; i++)
+            zobrist.put(longKeys[i], i & 3);
+        run("LongHashDictionary.get", params, records, () -> {
+            long total = 0;
+            for (int i = 0; i < records; i++)
+                total += zobrist.get(longKeys[i]);
+            return total;
+        });
+    }
+
+    /*
+     * Configurations.wins and evalBoard on half full boards of different sizes
+     */
+    private static void configurationsBenchmarks() {
+        final int boards = 64;
+        for (int[] size : new int[][] { { 3, 3 }, { 5, 4 }, { 7, 5 }, { 8, 5 }, { 15, 5 } }) {
+            final int boardSize = size[0];
+            final Configurations[] configs = new Configurations[boards];
+            Random random = new Random(2210);
+            for (int b = 0; b < boards; b++) {
+                configs[b] = new Configurations(boardSize, size[1], 0);
+                for (int m = 0; m < boardSize * boardSize / 2; m++) {
+                    int row = random.nextInt(boardSize);
+                    int col = random.nextInt(boardSize);
+                    if (configs[b].squareIsEmpty(row, col))
+                        configs[b].savePlay(row, col, m % 2 == 0 ? 'X' : 'O');
+                }
+            }
+            String params = "boardSize=" + boardSize + ";lengthToWin=" + size[1];
+
+            run("Configurations.wins", params, boards * 2, () -> {
+                long total = 0;
+                for (Configurations config : configs)
+                    total += (config.wins('X') ? 1 : 0) + (config.wins('O') ? 1 : 0);
+                return total;
+            });
+
+            run("Configurations.evalBoard", params, boards, () -> {
+                long total = 0;
+                for (Configurations config : configs)
+                    total += config.evalBoard();
+                return total;
+            });
+
+            // play and take back every empty square, the way the search does
+            run("Configurations.savePlay+winsAt", params, boards, () -> {
+                long total = 0;
+                for (Configurations config : configs)
+                    for (int row = 0; row < boardSize; row++)
+                        for (int col = 0; col < boardSize; col++)
+                            if (config.squareIsEmpty(row, col)) {
+                                config.savePlay(row, col, 'O');
+                                total += config.winsAt(row, col, 'O') ? 1 : 0;
+                                config.savePlay(row, col, ' ');
+                            }
+                return total;
+            });
+        }
+    }
+
+    /*
+     * A full computer move after one human move, with a new transposition table
+     * every time, at fixed board sizes and depths, and a Monte Carlo move with
+     * a fixed number of playouts on larger boards
+     */
+    private static void searchBenchmarks() {
+        for (final int[] game : new int[][] { { 3, 3, 9 }, { 4, 3, 5 }, { 4, 4, 6 }, { 5, 4, 4 }, { 7, 5, 3 } }) {
+            String params = "boardSize=" + game[0] + ";lengthToWin=" + game[1] + ";depth=" + game[2];
+            run("AlphaBetaSearch.computerPlay", params, 1, () -> {
+                Configurations configs = new Configurations(game[0], game[1], game[2]);
+                configs.savePlay(game[0] / 2, game[0] / 2, AlphaBetaSearch.HUMAN);
+                AlphaBetaSearch search = new AlphaBetaSearch(configs, new TranspositionTable(1 << 16), game[0],
+                        game[2]);
+                PosPlay play = search.computerPlay(AlphaBetaSearch.COMPUTER, Evaluator.BELOW_ALL, Evaluator.ABOVE_ALL, 0);
+                return play.getRow() * game[0] + play.getCol();
+            });
+        }
+        for (final int[] game : new int[][] { { 7, 5, 2000 }, { 15, 5, 2000 } }) {
+            String params = "boardSize=" + game[0] + ";lengthToWin=" + game[1] + ";playouts=" + game[2];
+            final Configurations configs = new Configurations(game[0], game[1], 1);
+            configs.savePlay(game[0] / 2, game[0] / 2, AlphaBetaSearch.HUMAN);
+            final MonteCarloSearch search = new MonteCarloSearch(configs, game[0], game[2], 1,
+                    MonteCarloSearch.DEFAULT_NODES);
+            run("MonteCarloSearch.choosePlay", params, 1, () -> {
+                PosPlay play = search.choosePlay(AlphaBetaSearch.COMPUTER, 0);
+                return play.getRow() * game[0] + play.getCol();
+            });
+            search.shutdown();
+        }
+    }
+
+    /**
+     * Runs one benchmark and writes its CSV line
+     *
+     * @param name             benchmark name
+     * @param params           parameters of the benchmark, separated by ';'
+     * @param operationsPerRun number of operations one call of the operation does
+     * @param operation        benchmarked operation
+     */
+    private static void run(String name, String params, int operationsPerRun, Operation operation) {
+        if (!name.contains(filter))
+            return;
+
+        double[] throughput = new double[MEASURED_ITERATIONS];
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            long operations = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sink += operation.run();
+                operations += operationsPerRun;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < ITERATION_NANOS);
+            if (i >= WARMUP_ITERATIONS)
+                throughput[i - WARMUP_ITERATIONS] = operations * 1e9 / elapsed;
+        }
+
+        double mean = 0;
+        for (double value : throughput)
+            mean += value;
+        mean /= MEASURED_ITERATIONS;
+        double variance = 0;
+        for (double value : throughput)
+            variance += (value - mean) * (value - mean);
+        double error = Math.sqrt(variance / (MEASURED_ITERATIONS - 1));
+
+        out.printf("%s,%s,%.1f,%.1f,%d%n", name, params, mean, error, MEASURED_ITERATIONS);
+        out.flush();
+    }
+
+    // returns a random string of X, O and spaces like the string of a board
+    private static String randomBoard(Random random, int squares) {
+        char[] board = new char[squares];
+        for (int i = 0; i < squares; i++)
+            board[i] = "XO ".charAt(random.nextInt(3));
+        return new String(board);
+    }
+}
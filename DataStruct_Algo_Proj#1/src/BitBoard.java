@@ -0,0 +1,123 @@
+/**
+ * The BitBoard class stores a Tic-Tac-Toe board of at most 8x8 squares as two
+ * 64-bit masks, one for the 'X' pieces and one for the 'O' pieces. Square
+ * (row, col) is bit row * boardSize + col. A win is found with shift-and-mask
+ * tests instead of scanning every row, column and diagonal, so checking the
+ * board takes a few instructions and allocates nothing.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class BitBoard implements BoardEngine {
+
+    public static final int MAX_SIZE = 8; // 8x8 = 64 squares fit in one long
+
+    private long xBits; // squares taken by 'X'
+    private long oBits; // squares taken by 'O'
+    private final int boardSize; // game board dimension
+    private final int lengthToWin; // length of consecutive pieces needed to win
+    private final long fullBoard; // mask with one bit set for every square
+    private final int[] shifts; // bit distance between neighbours in each direction
+    private final long[] startMasks; // squares a winning line can start from in each direction
+
+    /**
+     * @param boardSize   dimension of the board (at most MAX_SIZE)
+     * @param lengthToWin length of consecutive pieces needed to win
+     */
+    public BitBoard(int boardSize, int lengthToWin) {
+        if (boardSize > MAX_SIZE) {
+            throw new IllegalArgumentException("BitBoard supports boards up to " + MAX_SIZE + "x" + MAX_SIZE);
+        }
+        this.boardSize = boardSize;
+        this.lengthToWin = lengthToWin;
+        int cells = boardSize * boardSize;
+        this.fullBoard = cells == 64 ? -1L : (1L << cells) - 1;
+
+        // horizontal, vertical, main diagonal and reverse diagonal
+        int[] rowSteps = { 0, 1, 1, 1 };
+        int[] colSteps = { 1, 0, 1, -1 };
+        this.shifts = new int[4];
+        this.startMasks = new long[4];
+
+        for (int d = 0; d < 4; d++) {
+            shifts[d] = rowSteps[d] * boardSize + colSteps[d];
+            // a line can start at (row, col) only if its last square is still on the board,
+            // so shifting never wraps a line around the edge of the board
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    int endRow = row + rowSteps[d] * (lengthToWin - 1);
+                    int endCol = col + colSteps[d] * (lengthToWin - 1);
+                    if (endRow < boardSize && endCol >= 0 && endCol < boardSize) {
+                        startMasks[d] |= 1L << (row * boardSize + col);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy constructor, the line masks never change so they are shared
+     *
+     * @param other bitboard to copy
+     */
+    public BitBoard(BitBoard other) {
+        this.xBits = other.xBits;
+        this.oBits = other.oBits;
+        this.boardSize = other.boardSize;
+        this.lengthToWin = other.lengthToWin;
+        this.fullBoard = other.fullBoard;
+        this.shifts = other.shifts;
+        this.startMasks = other.startMasks;
+    }
+
+    public BoardEngine copy() {
+        return new BitBoard(this);
+    }
+
+    // adds the character symbol to the given board position (' ' clears it)
+    public void set(int row, int col, char symbol) {
+        long bit = 1L << (row * boardSize + col);
+        xBits &= ~bit;
+        oBits &= ~bit;
+        if (symbol == 'X') {
+            xBits |= bit;
+        } else if (symbol == 'O') {
+            oBits |= bit;
+        }
+    }
+
+    // returns true is board position is empty, false otherwise
+    public boolean isEmpty(int row, int col) {
+        return ((xBits | oBits) & (1L << (row * boardSize + col))) == 0;
+    }
+
+    // returns true if every square of the board is taken
+    public boolean isFull() {
+        return (xBits | oBits) == fullBoard;
+    }
+
+    /**
+     * @return true if symbol has lengthToWin consecutive pieces in a row, column
+     *         or diagonal
+     * @param symbol is the specific sequence that is checked for (either 'X' or
+     *               'O')
+     */
+    public boolean wins(char symbol) {
+        long pieces = symbol == 'X' ? xBits : oBits;
+
+        for (int d = 0; d < 4; d++) {
+            long line = pieces & startMasks[d];
+            /**
+             * after the loop a bit is still set only if that square and the next
+             * lengthToWin - 1 squares in direction d all hold the symbol
+             */
+            for (int i = 1; i < lengthToWin && line != 0; i++) {
+                line &= pieces >>> (i * shifts[d]);
+            }
+            if (line != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
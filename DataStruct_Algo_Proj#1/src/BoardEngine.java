@@ -0,0 +1,25 @@
+/**
+ * The BoardEngine interface is the bitset view of a board that Configurations
+ * keeps in step with its char board to check wins and full boards quickly.
+ * BitBoard handles boards of up to 64 squares in one long, WideBitBoard larger
+ * boards in an array of longs.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public interface BoardEngine {
+    // adds the character symbol to the given board position (' ' clears it)
+    void set(int row, int col, char symbol);
+
+    // returns true is board position is empty, false otherwise
+    boolean isEmpty(int row, int col);
+
+    // returns true if every square of the board is taken
+    boolean isFull();
+
+    // returns true if symbol has lengthToWin consecutive pieces in a row, column or diagonal
+    boolean wins(char symbol);
+
+    // returns an independent copy of the board
+    BoardEngine copy();
+}
@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The BookGenerator class solves a small board ahead of time and writes the
+ * OpeningBook the computer answers from. Starting from the empty board with the
+ * human to move, every human move is followed, and on every configuration the
+ * computer has to move on the game tree is searched to the end with
+ * AlphaBetaSearch. Only the chosen computer move is followed further, since
+ * the computer always plays the move of the book. Symmetric configurations are
+ * solved once as they share one canonical key.
+ *
+ * To run the program type: java BookGenerator size length [pieces] where size
+ * is the size of the board, length is the length of the shape needed to win
+ * and pieces is the optional largest number of pieces on a configuration in
+ * the book (the whole game by default). The book is written to
+ * book-size-length.bin.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class BookGenerator {
+    private Configurations configs; // board the game is played on
+    private AlphaBetaSearch search; // search to the end of the game tree
+    private LongHashDictionary visited; // canonical keys of configurations already expanded
+    private int board_size; // size of game board
+    private int max_pieces; // configurations with more pieces are not stored
+
+    private long[] keys = new long[1024]; // canonical key of each solved configuration
+    private int[] moves = new int[1024]; // best move of each, on the canonical variant
+    private int[] scores = new int[1024]; // score of each
+    private int count; // number of solved configurations
+
+    public BookGenerator(int board_size, int to_win, int max_pieces) {
+        int squares = board_size * board_size;
+        this.configs = new Configurations(board_size, to_win, squares);
+        this.search = new AlphaBetaSearch(configs, new TranspositionTable(1 << 22), board_size, squares);
+        this.visited = new LongHashDictionary(1 << 16);
+        this.board_size = board_size;
+        this.max_pieces = max_pieces;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.out.println("Usage: java BookGenerator board-size shape-length [pieces]");
+            System.exit(0);
+        }
+        int size = Integer.parseInt(args[0]);
+        int adjacent_to_win = Integer.parseInt(args[1]);
+        int pieces = args.length == 3 ? Integer.parseInt(args[2]) : size * size;
+
+        long start = System.currentTimeMillis();
+        BookGenerator generator = new BookGenerator(size, adjacent_to_win, pieces);
+        generator.expand(0, AlphaBetaSearch.HUMAN);
+
+        Path path = OpeningBook.path(size, adjacent_to_win);
+        OpeningBook.write(path, size, adjacent_to_win, generator.keys, generator.moves, generator.scores,
+                generator.count);
+        System.out.println(generator.count + " configurations written to " + path + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Solves or expands the current configuration
+     *
+     * @param pieces number of pieces on the board
+     * @param symbol player to move
+     */
+    private void expand(int pieces, char symbol) {
+        if (pieces > max_pieces || configs.repeatedConfiguration(visited) != -1) {
+            return;
+        }
+        configs.addConfiguration(visited, 0);
+
+        if (symbol == AlphaBetaSearch.COMPUTER) {
+            PosPlay best = search.computerPlay(AlphaBetaSearch.COMPUTER, Evaluator.BELOW_ALL, Evaluator.ABOVE_ALL, 0);
+            add(configs.getHash(), configs.toCanonical(best.getRow() * board_size + best.getCol()),
+                    best.getScore());
+            play(best.getRow(), best.getCol(), symbol, pieces);
+        } else {
+            for (int row = 0; row < board_size; row++)
+                for (int column = 0; column < board_size; column++)
+                    if (configs.squareIsEmpty(row, column))
+                        play(row, column, symbol, pieces);
+        }
+    }
+
+    // plays a move, expands the configuration it leads to unless the game ends and takes it back
+    private void play(int row, int column, char symbol, int pieces) {
+        configs.savePlay(row, column, symbol);
+        if (!configs.winsAt(row, column, symbol) && !configs.isDraw())
+            expand(pieces + 1, symbol == AlphaBetaSearch.HUMAN ? AlphaBetaSearch.COMPUTER : AlphaBetaSearch.HUMAN);
+        configs.savePlay(row, column, ' ');
+    }
+
+    // stores a solved configuration
+    private void add(long key, int move, int score) {
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * count);
+            moves = Arrays.copyOf(moves, 2 * count);
+            scores = Arrays.copyOf(scores, 2 * count);
+        }
+        keys[count] = key;
+        moves[count] = move;
+        scores[count] = score;
+        count++;
+    }
+}
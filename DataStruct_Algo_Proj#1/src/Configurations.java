@@ -1,3 +1,5 @@
+import java.util.Random;
+
 /**
  * The Configurations class tracks the Tic-Tac-Toe game using the hash
  * table, storing all the configurations and their scores to manage the game
@@ -11,6 +13,24 @@ public class Configurations {
     private char[][] board; // 2d array of the game board
     private int boardSize; // game board dimension
     private int lengthToWin; // length of consecutive pieces needed to win
+    private BoardEngine bits; // bitset board engine, null if the board is larger than WideBitBoard.MAX_SIZE
+
+    private static final long ZOBRIST_SEED = 2210L; // fixed seed so hashes are the same on every run
+    private long[] zobristX; // random key of an 'X' on each square
+    private long[] zobristO; // random key of an 'O' on each square
+    private long[] hashes; // Zobrist hash of the board under each of the 8 symmetries, updated by savePlay
+    private int[][] symmetries; // square each square moves to under each symmetry of the board
+    private int[][] inverses; // square each square comes from under each symmetry of the board
+
+    private int[] moveSquares; // squares played so far, in the order they were played
+    private boolean[] moveWon; // true if the move at the same index completed a line
+    private int moveCount; // number of moves in the history
+    private int xWinningMoves; // moves in the history that completed a line for 'X'
+    private int oWinningMoves; // moves in the history that completed a line for 'O'
+    private boolean historyValid; // false once a piece is removed or replaced out of order
+    private int emptySquares; // number of empty squares on the board
+
+    private Evaluator evaluator; // scores undecided configurations, null to score them all UNDECIDED
 
     /**
      * Every entry of the board initially store a space.
@@ -34,16 +54,168 @@ public class Configurations {
                 board[i][j] = ' ';
             }
         }
+
+        // boards that fit in 64 bits use a single long per player, larger ones an array of longs
+        if (boardSize <= BitBoard.MAX_SIZE) {
+            this.bits = new BitBoard(boardSize, lengthToWin);
+        } else if (boardSize <= WideBitBoard.MAX_SIZE) {
+            this.bits = new WideBitBoard(boardSize, lengthToWin);
+        }
+
+        // one random 64-bit key per square and symbol, the empty board hashes to 0
+        Random random = new Random(ZOBRIST_SEED);
+        this.zobristX = new long[boardSize * boardSize];
+        this.zobristO = new long[boardSize * boardSize];
+        for (int i = 0; i < boardSize * boardSize; i++) {
+            zobristX[i] = random.nextLong();
+            zobristO[i] = random.nextLong();
+        }
+        this.hashes = new long[8];
+
+        /**
+         * the 4 rotations and 4 reflections of the square board, a board and all
+         * of its rotated or reflected variants are the same position and get the
+         * same score, so they are stored under one canonical key
+         */
+        int last = boardSize - 1;
+        this.symmetries = new int[8][boardSize * boardSize];
+        this.inverses = new int[8][boardSize * boardSize];
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                int square = row * boardSize + col;
+                symmetries[0][square] = square; // identity
+                symmetries[1][square] = col * boardSize + (last - row); // rotate 90
+                symmetries[2][square] = (last - row) * boardSize + (last - col); // rotate 180
+                symmetries[3][square] = (last - col) * boardSize + row; // rotate 270
+                symmetries[4][square] = row * boardSize + (last - col); // mirror left-right
+                symmetries[5][square] = (last - row) * boardSize + col; // mirror top-bottom
+                symmetries[6][square] = col * boardSize + row; // main diagonal
+                symmetries[7][square] = (last - col) * boardSize + (last - row); // reverse diagonal
+            }
+        }
+        for (int t = 0; t < 8; t++) {
+            for (int square = 0; square < boardSize * boardSize; square++) {
+                inverses[t][symmetries[t][square]] = square;
+            }
+        }
+
+        this.moveSquares = new int[boardSize * boardSize];
+        this.moveWon = new boolean[boardSize * boardSize];
+        this.moveCount = 0;
+        this.historyValid = true;
+        this.emptySquares = boardSize * boardSize;
+    }
+
+    /**
+     * Copy constructor, creates an independent board with the same pieces so a
+     * search on another thread can play moves on it
+     * 
+     * @param other configurations to copy
+     */
+    public Configurations(Configurations other) {
+        this.board = new char[other.boardSize][];
+        for (int i = 0; i < other.boardSize; i++) {
+            this.board[i] = other.board[i].clone();
+        }
+        this.boardSize = other.boardSize;
+        this.lengthToWin = other.lengthToWin;
+        this.bits = other.bits == null ? null : other.bits.copy();
+
+        // the Zobrist keys and symmetries never change so they are shared
+        this.zobristX = other.zobristX;
+        this.zobristO = other.zobristO;
+        this.hashes = other.hashes.clone();
+        this.symmetries = other.symmetries;
+        this.inverses = other.inverses;
+
+        this.moveSquares = other.moveSquares.clone();
+        this.moveWon = other.moveWon.clone();
+        this.moveCount = other.moveCount;
+        this.xWinningMoves = other.xWinningMoves;
+        this.oWinningMoves = other.oWinningMoves;
+        this.historyValid = other.historyValid;
+        this.emptySquares = other.emptySquares;
+        this.evaluator = other.evaluator == null ? null : other.evaluator.copy();
+    }
+
+    /**
+     * Selection of the hash table used to store the configurations. The table is
+     * keyed directly on the Zobrist hash of the board. The string keyed
+     * OpenHashDictionary or HashDictionary can still be used through the
+     * DictionaryADT versions of repeatedConfiguration and addConfiguration.
+     * 
+     * @return an empty hash table
+     */
+    public LongHashDictionary createDictionary() {
+        int tableSize = 8311; // expected number of configurations
+        return new LongHashDictionary(tableSize);
+    }
+
+    /**
+     * Creates the transposition table that is kept for a whole game, 2^20
+     * entries of 16 bytes each
+     * 
+     * @return an empty transposition table
+     */
+    public TranspositionTable createTranspositionTable() {
+        return new TranspositionTable(1 << 20);
     }
 
     /**
-     * Selection of a prime number hash table size between 6000-10000
+     * checks if the Zobrist hash of the board is in the hash table
      * 
-     * @return an empty hash table size
+     * @param hashTable is the hash table of all the records entered from the game
+     * @return configuration score if the board exists in hash table or -1 if not
+     */
+    public int repeatedConfiguration(LongHashDictionary hashTable) {
+        return hashTable.get(getHash()); // no string of the board is built
+    }
+
+    /**
+     * inserts the Zobrist hash of the board and its score into the hash table
+     * 
+     * @param hashDictionary
+     * @param score
      */
-    public HashDictionary createDictionary() {
-        int tableSize = 8311; // chosen prime number size of 8311
-        return new HashDictionary(tableSize);
+    public void addConfiguration(LongHashDictionary hashDictionary, int score) {
+        hashDictionary.put(getHash(), score);
+    }
+
+    /**
+     * @return the canonical Zobrist hash of the current board, the smallest hash
+     *         of its 8 rotated and reflected variants, so all of them share one
+     *         key
+     */
+    public long getHash() {
+        return hashes[canonicalSymmetry()];
+    }
+
+    // returns the symmetry that turns the current board into its canonical variant
+    private int canonicalSymmetry() {
+        int best = 0;
+        for (int t = 1; t < 8; t++) {
+            if (hashes[t] < hashes[best]) {
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param square square of the current board (row * boardSize + col) or -1
+     * @return the same square on the canonical variant of the board, squares
+     *         stored under the canonical key have to be converted this way
+     */
+    public int toCanonical(int square) {
+        return square == -1 ? -1 : symmetries[canonicalSymmetry()][square];
+    }
+
+    /**
+     * @param square square of the canonical variant of the board or -1
+     * @return the same square on the current board
+     */
+    public int fromCanonical(int square) {
+        return square == -1 ? -1 : inverses[canonicalSymmetry()][square];
     }
 
     /**
@@ -52,7 +224,7 @@ public class Configurations {
      * @param hashTable is the hash table of all the records entered from the game
      * @return configuration score if string exists in hash table or -1 if not
      */
-    public int repeatedConfiguration(HashDictionary hashTable) {
+    public int repeatedConfiguration(DictionaryADT hashTable) {
         // calls helper method boardToString to create a string of the board
         String boardString = boardToString(board);
         // gets score of configuration(boardString)
@@ -69,16 +241,18 @@ public class Configurations {
     /**
      * @param board is the 2d array of the game board
      *              board goes through 2d array from top to bottom and left to right
+     *              after turning it into its canonical variant
      * @return the string of every entry to the board
      */
     private String boardToString(char[][] board) {
-        StringBuilder sb = new StringBuilder();
+        int[] symmetry = symmetries[canonicalSymmetry()];
+        char[] entries = new char[boardSize * boardSize];
         for (int i = 0; i < boardSize; i++) { // rows
             for (int j = 0; j < boardSize; j++) { // columns
-                sb.append(board[i][j]); // adds piece to board
+                entries[symmetry[i * boardSize + j]] = board[i][j]; // adds piece to board
             }
         }
-        return sb.toString(); // returns string of board
+        return new String(entries); // returns string of board
     }
 
     /**
@@ -88,7 +262,7 @@ public class Configurations {
      * @param hashDictionary
      * @param score
      */
-    public void addConfiguration(HashDictionary hashDictionary, int score) {
+    public void addConfiguration(DictionaryADT hashDictionary, int score) {
         // convert board to string
         String boardString = boardToString(board); // string of board
         // inserts key and value into hash dictionary
@@ -97,7 +271,86 @@ public class Configurations {
 
     // adds the character symbol to the given board position
     public void savePlay(int row, int col, char symbol) {
+        int square = row * boardSize + col;
+        char previous = board[row][col];
+        // xor out the piece being replaced and xor in the new one on every variant
+        for (int t = 0; t < 8; t++) {
+            int moved = symmetries[t][square];
+            hashes[t] ^= zobristKey(moved, previous) ^ zobristKey(moved, symbol);
+        }
         board[row][col] = symbol;
+        if (bits != null) {
+            bits.set(row, col, symbol); // keep the bitboard in step with the board
+        }
+        if (evaluator != null) {
+            evaluator.update(square, previous, symbol);
+        }
+
+        if (previous == ' ' && symbol != ' ') {
+            emptySquares--;
+            recordMove(square, symbol, winsAt(row, col, symbol));
+        } else if (previous != ' ' && symbol == ' ') {
+            emptySquares++;
+            undoMove(square, previous);
+        } else if (previous != symbol) {
+            historyValid = false; // a piece was replaced by the other symbol
+        }
+
+        if (emptySquares == boardSize * boardSize) {
+            // the board is empty again so the history can be trusted from here on
+            moveCount = 0;
+            xWinningMoves = 0;
+            oWinningMoves = 0;
+            historyValid = true;
+        }
+    }
+
+    // pushes a move on the history and counts it if it completed a line
+    private void recordMove(int square, char symbol, boolean won) {
+        if (!historyValid) {
+            return;
+        }
+        moveSquares[moveCount] = square;
+        moveWon[moveCount] = won;
+        moveCount++;
+        if (won) {
+            if (symbol == 'X') {
+                xWinningMoves++;
+            } else {
+                oWinningMoves++;
+            }
+        }
+    }
+
+    /**
+     * pops the last move from the history. Lines completed before the last move
+     * do not use its square, so they are still on the board afterwards. Removing
+     * any other square could break an earlier line, so the history is no longer
+     * used until the board is empty again.
+     */
+    private void undoMove(int square, char symbol) {
+        if (!historyValid || moveCount == 0 || moveSquares[moveCount - 1] != square) {
+            historyValid = false;
+            return;
+        }
+        moveCount--;
+        if (moveWon[moveCount]) {
+            if (symbol == 'X') {
+                xWinningMoves--;
+            } else {
+                oWinningMoves--;
+            }
+        }
+    }
+
+    // returns the Zobrist key of symbol on the given square (0 for an empty square)
+    private long zobristKey(int square, char symbol) {
+        if (symbol == 'X') {
+            return zobristX[square];
+        } else if (symbol == 'O') {
+            return zobristO[square];
+        }
+        return 0L;
     }
 
     // returns true is board position is empty (' '), false otherwise
@@ -113,6 +366,10 @@ public class Configurations {
      *               'O')
      */
     public boolean wins(char symbol) {
+        // Boards up to WideBitBoard.MAX_SIZE are checked with shift-and-mask tests on the bitboard
+        if (bits != null) {
+            return bits.wins(symbol);
+        }
         // Check for horizontal win using private helper
         if (checkHorizontal(symbol)) {
             return true;
@@ -129,6 +386,48 @@ public class Configurations {
         return false;
     }
 
+    /**
+     * @returns true if the piece at (row, col) is part of a continuous sequence
+     *          of the length to win. Only the row, column and two diagonals
+     *          through the square are counted, outward from the square, so this
+     *          takes O(lengthToWin) time instead of scanning the whole board.
+     * @param row    row of the square that was just played
+     * @param col    column of the square that was just played
+     * @param symbol is the specific sequence that is checked for (either 'X' or
+     *               'O')
+     */
+    public boolean winsAt(int row, int col, char symbol) {
+        if (board[row][col] != symbol) {
+            return false;
+        }
+        return lineLength(row, col, 0, 1, symbol) >= lengthToWin // horizontal
+                || lineLength(row, col, 1, 0, symbol) >= lengthToWin // vertical
+                || lineLength(row, col, 1, 1, symbol) >= lengthToWin // main diagonal
+                || lineLength(row, col, 1, -1, symbol) >= lengthToWin; // reverse diagonal
+    }
+
+    // counts consecutive symbols through (row, col) in both directions of (rowStep, colStep)
+    private int lineLength(int row, int col, int rowStep, int colStep, char symbol) {
+        int count = 1; // the square itself
+        int r = row + rowStep;
+        int c = col + colStep;
+        while (count < lengthToWin && r >= 0 && r < boardSize && c >= 0 && c < boardSize
+                && board[r][c] == symbol) {
+            count++;
+            r += rowStep;
+            c += colStep;
+        }
+        r = row - rowStep;
+        c = col - colStep;
+        while (count < lengthToWin && r >= 0 && r < boardSize && c >= 0 && c < boardSize
+                && board[r][c] == symbol) {
+            count++;
+            r -= rowStep;
+            c -= colStep;
+        }
+        return count;
+    }
+
     // checks for horizontal sequence for the given character
     private boolean checkHorizontal(char symbol) {
         for (int row = 0; row < boardSize; row++) { // goes through one row at a time
@@ -216,6 +515,15 @@ public class Configurations {
 
     // return true if board has no empty positions left and no player has won
     public boolean isDraw() {
+        if (historyValid) {
+            // every winning line was recorded by winsAt when its last piece was played
+            return emptySquares == 0 && xWinningMoves == 0 && oWinningMoves == 0;
+        }
+
+        if (bits != null) {
+            return bits.isFull() && !bits.wins('X') && !bits.wins('O');
+        }
+
         // iterates through board
         for (int row = 0; row < boardSize; row++) {
             for (int col = 0; col < boardSize; col++) {
@@ -233,6 +541,38 @@ public class Configurations {
         return true;
     }
 
+    /**
+     * Sets the evaluator of undecided configurations, it is told about every
+     * piece already on the board
+     *
+     * @param evaluator new evaluator with no pieces, or null to score every
+     *                  undecided configuration UNDECIDED
+     */
+    public void setEvaluator(Evaluator evaluator) {
+        this.evaluator = evaluator;
+        if (evaluator != null) {
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    if (board[row][col] != ' ') {
+                        evaluator.update(row * boardSize + col, ' ', board[row][col]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return score of the board for the search: evalBoard on the scale of
+     *         Evaluator, with undecided configurations scored by the evaluator
+     */
+    public int evaluate() {
+        int outcome = evalBoard();
+        if (outcome == 1 && evaluator != null) {
+            return evaluator.score();
+        }
+        return outcome * Evaluator.SCALE;
+    }
+
     /**
      * @return board score evaluation for game
      * 
@@ -243,6 +583,18 @@ public class Configurations {
      *         player has won yet)
      */
     public int evalBoard() {
+        if (historyValid) {
+            // the wins were already found with winsAt when the moves were played
+            if (oWinningMoves > 0) {
+                return 3;
+            } else if (xWinningMoves > 0) {
+                return 0;
+            } else if (emptySquares == 0) {
+                return 2;
+            }
+            return 1;
+        }
+
         // Check if the computer player (symbol 'O') has won
         if (wins('O')) {
             return 3;
@@ -0,0 +1,40 @@
+/**
+ * The Evaluator interface scores configurations that are not decided yet, the
+ * leaves the search reaches at max_level. Configurations tells its evaluator
+ * every play stored with savePlay, so an evaluator can keep its score up to
+ * date incrementally instead of scanning the board at every leaf.
+ *
+ * Scores of the search use the scale of evalBoard multiplied by SCALE: a human
+ * win is HUMAN_WINS, a draw DRAW and a computer win COMPUTER_WINS. Without an
+ * evaluator every undecided configuration scores UNDECIDED; an evaluator may
+ * return any score strictly between HUMAN_WINS and COMPUTER_WINS, higher when
+ * the configuration is better for the computer.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public interface Evaluator {
+    int SCALE = 10000; // search score of evalBoard score 1
+    int HUMAN_WINS = 0; // evalBoard 0
+    int UNDECIDED = SCALE; // evalBoard 1
+    int DRAW = 2 * SCALE; // evalBoard 2
+    int COMPUTER_WINS = 3 * SCALE; // evalBoard 3
+
+    int BELOW_ALL = HUMAN_WINS - 1; // initial highest_score of a search, below every score
+    int ABOVE_ALL = COMPUTER_WINS + 1; // initial lowest_score of a search, above every score
+
+    /**
+     * Called by Configurations.savePlay for every play
+     *
+     * @param square   square of the play (row * boardSize + col)
+     * @param previous symbol the square held before ('X', 'O' or ' ')
+     * @param symbol   symbol the square holds now ('X', 'O' or ' ')
+     */
+    void update(int square, char previous, char symbol);
+
+    // returns the score of the current configuration, which nobody has won yet
+    int score();
+
+    // returns an independent copy with the same state, for a copy of the board
+    Evaluator copy();
+}
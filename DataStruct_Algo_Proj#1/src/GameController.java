@@ -1,47 +1,178 @@
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+/**
+ * Web interface of the game. Every game started with /startGame gets its own
+ * id, which the client sends back with each /makeMove. Games are kept in a
+ * concurrent map so requests for different games never block each other, and
+ * games nobody has played for IDLE_TIMEOUT_MILLIS are evicted.
+ *
+ * The computer reply is searched on a bounded pool of search threads instead
+ * of the request thread: /makeMove plays the human move and returns a
+ * CompletableFuture that completes with the reply, so the servlet thread is
+ * released during the search. When the pool and its queue are full the human
+ * move is taken back and 503 is returned. A client that gave up waiting can
+ * poll /game for the board and whether the computer is still thinking; a
+ * finished game stays readable there until it is evicted as idle.
+ */
 @RestController
-public class GameController {
+public class GameController implements DisposableBean {
+    private static final long IDLE_TIMEOUT_MILLIS = 30 * 60 * 1000L; // a game unused this long is evicted
+    private static final long HARD_BUDGET_MILLIS = 1000L; // time budget of a "hard" computer move
+    private static final long MAX_BUDGET_MILLIS = 10000L; // largest time budget a request may ask for
+    private static final int SEARCH_QUEUE_SIZE = 256; // computer moves waiting for a search thread
+
+    private final ConcurrentHashMap<String, GameSession> games = new ConcurrentHashMap<>();
+    private final SearchMetrics metrics; // counters shared by the searches of every game
+    private final ThreadPoolExecutor searchThreads = new ThreadPoolExecutor(
+            Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().availableProcessors(),
+            60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(SEARCH_QUEUE_SIZE));
 
-    private TicTacToeGame game;
+    public GameController(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     @PostMapping("/startGame")
     public GameResponse startGame(@RequestBody GameOptions options) {
-        game = new TicTacToeGame(options.boardSize, options.winningCondition);
-        return new GameResponse(game.getBoard());
+        TicTacToeGame game;
+        try {
+            game = newGame(options);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        String gameId = UUID.randomUUID().toString();
+        games.put(gameId, new GameSession(game));
+        return new GameResponse(gameId, game.getBoard());
     }
 
     @PostMapping("/makeMove")
-    public GameResponse makeMove(@RequestBody Move move) {
-        game.makeMove(move.row, move.col);
+    public CompletableFuture<GameResponse> makeMove(@RequestBody Move move) {
+        GameSession session = session(move.gameId);
+        TicTacToeGame game = session.game;
+        if (!game.playHuman(move.row, move.col)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid move");
+        }
         if (game.isGameOver()) {
-            return new GameResponse(game.getBoard(), true, game.getWinner() + " wins!");
+            return CompletableFuture.completedFuture(response(move.gameId, game));
+        }
+
+        // the request may lower or raise the budget of the game up to MAX_BUDGET_MILLIS
+        long budget = move.budgetMillis > 0 ? Math.min(move.budgetMillis, MAX_BUDGET_MILLIS) : game.getBudget();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                game.computerMove(budget);
+                return response(move.gameId, game);
+            }, searchThreads);
+        } catch (RejectedExecutionException e) {
+            game.takeBackHuman(move.row, move.col);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many searches, try again");
+        }
+    }
+
+    // returns the board of a game, thinking is true while the computer reply is searched
+    @GetMapping("/game")
+    public GameResponse game(@RequestParam String gameId) {
+        return response(gameId, session(gameId).game);
+    }
+
+    // returns the session of the game id and marks it as used
+    private GameSession session(String gameId) {
+        GameSession session = gameId == null ? null : games.get(gameId);
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown or expired game");
+        }
+        session.lastAccess = System.currentTimeMillis();
+        return session;
+    }
+
+    // returns the state of a game
+    private GameResponse response(String gameId, TicTacToeGame game) {
+        if (game.isGameOver()) {
+            String winner = game.getWinner();
+            return new GameResponse(gameId, game.getBoard(), true,
+                    winner == null ? "Game is a draw" : winner + " wins!");
+        }
+        GameResponse response = new GameResponse(gameId, game.getBoard());
+        response.thinking = game.isComputerToMove();
+        return response;
+    }
+
+    // removes the games that have not been played for IDLE_TIMEOUT_MILLIS
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleGames() {
+        long oldest = System.currentTimeMillis() - IDLE_TIMEOUT_MILLIS;
+        games.values().removeIf(session -> session.lastAccess < oldest);
+    }
+
+    // stops the search threads when the application shuts down
+    public void destroy() {
+        searchThreads.shutdownNow();
+    }
+
+    // creates the game for the options, the difficulty sets how far the computer looks ahead
+    private TicTacToeGame newGame(GameOptions options) {
+        String difficulty = options.difficulty == null ? "medium" : options.difficulty;
+        switch (difficulty) {
+            case "easy":
+                return new TicTacToeGame(options.boardSize, options.winningCondition, 1, 0, metrics);
+            case "hard":
+                return new TicTacToeGame(options.boardSize, options.winningCondition,
+                        options.boardSize * options.boardSize, HARD_BUDGET_MILLIS, metrics);
+            default:
+                return new TicTacToeGame(options.boardSize, options.winningCondition, 3, 0, metrics);
+        }
+    }
+
+    static class GameSession {
+        final TicTacToeGame game;
+        volatile long lastAccess; // System.currentTimeMillis() of the last request
+
+        GameSession(TicTacToeGame game) {
+            this.game = game;
+            this.lastAccess = System.currentTimeMillis();
         }
-        return new GameResponse(game.getBoard());
     }
 
     static class GameOptions {
+        public String difficulty;
         public int boardSize;
         public int winningCondition;
     }
 
     static class Move {
+        public String gameId;
         public int row;
         public int col;
+        public long budgetMillis; // time budget of the computer reply, 0 for the budget of the game
     }
 
     static class GameResponse {
+        public String gameId;
         public char[][] board;
         public boolean gameOver;
+        public boolean thinking; // true while the computer reply is being searched
         public String message;
 
-        public GameResponse(char[][] board) {
+        public GameResponse(String gameId, char[][] board) {
+            this.gameId = gameId;
             this.board = board;
             this.gameOver = false;
             this.message = "";
         }
 
-        public GameResponse(char[][] board, boolean gameOver, String message) {
+        public GameResponse(String gameId, char[][] board, boolean gameOver, String message) {
+            this.gameId = gameId;
             this.board = board;
             this.gameOver = gameOver;
             this.message = message;
@@ -1,7 +1,11 @@
-
 /**
  * The HashDictionary class implements the dictionary for all the configurations and scores using a hash table with
  * separate chaining. Consisting of a LinkedList for the hash table and LinkedLists for all the chains of the table.
+ *
+ * When the number of records per bucket (the load factor) goes above the maximum load factor, the table is replaced
+ * by one about twice as large. The records are moved to the new table incrementally: every put, get and remove
+ * moves a few buckets of the old table, so no single operation has to rehash the whole table. Until every bucket
+ * has been moved both tables are searched, and the table does not grow again before then.
  * 
  * @author Arya Zarei
  * 2210B Assignment 2: Tic-Tac-Toe
@@ -10,8 +14,16 @@
 import java.util.LinkedList;
 
 public class HashDictionary implements DictionaryADT {
+    public static final double DEFAULT_MAX_LOAD_FACTOR = 0.75; // records per bucket before the table grows
+    private static final int MIGRATE_BUCKETS = 4; // buckets of the old table moved by each operation
+
     private LinkedList<Data>[] table; // Hash table
     private int size; // size of Hash table
+    private LinkedList<Data>[] oldTable; // Hash table being moved to table, null if none
+    private int oldSize; // size of the old Hash table
+    private int migrated; // number of buckets of the old table already moved
+    private int count; // number of records in both tables
+    private double maxLoadFactor; // load factor that starts a resize
 
     /**
      * Constructor returns an empty hash table
@@ -19,15 +31,30 @@ public class HashDictionary implements DictionaryADT {
      * @param size is the size of the hash table
      */
     public HashDictionary(int size) {
-        this.size = size;
-        table = new LinkedList[size];
-        /**
-         * iterate through the table to create an new LinkedList for each bucket of the
-         * hash table for separate chaining
-         */
-        for (int i = 0; i < size; i++) {
-            table[i] = new LinkedList<>();
+        this(size, DEFAULT_MAX_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructor returns an empty hash table that grows once it holds more than
+     * maxLoadFactor records per bucket
+     * 
+     * @param size          is the initial size of the hash table
+     * @param maxLoadFactor is the load factor that starts a resize
+     */
+    public HashDictionary(int size, double maxLoadFactor) {
+        if (maxLoadFactor <= 0) {
+            throw new IllegalArgumentException("maxLoadFactor must be positive");
         }
+        this.size = size;
+        this.maxLoadFactor = maxLoadFactor;
+        // chains are created when the first record of a bucket is added
+        table = newTable(size);
+    }
+
+    // returns a hash table of size empty buckets
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static LinkedList<Data>[] newTable(int size) {
+        return new LinkedList[size];
     }
 
     /**
@@ -38,32 +65,38 @@ public class HashDictionary implements DictionaryADT {
      *                             separate chain
      */
     public int put(Data record) throws DictionaryException {
+        migrate(); // move a few buckets of the old table
+        if (find(record.getConfiguration()) != null) {
+            throw new DictionaryException(); // throws exception if duplicate is found
+        }
+
         // calculate the index for the record using private hash function
-        int index = hash(record.getConfiguration());
+        int index = hash(record.getConfiguration(), size);
         // linked list at position of record for separate chaining
         LinkedList<Data> chain = table[index];
-        // for each loop iterates to check for duplicates in chain
-        for (Data data : chain) {
-            if (data.getConfiguration().equals(record.getConfiguration())) {
-                throw new DictionaryException(); // throws exception if duplicate is found
-            }
+        if (chain == null) {
+            chain = new LinkedList<>();
+            table[index] = chain;
         }
         chain.add(record); // add record to chain
+        count++;
+        int collision = chain.size() > 1 ? 1 : 0; // 1 if collision occurred, 0 if the chain was empty
 
-        if (chain.size() > 1) {
-            return 1; // return 1 if collision occurred
-        } else {
-            return 0; // return 0 if the chain was empty
+        // a resize still moving buckets finishes first, its new table is about half full
+        if (oldTable == null && count > maxLoadFactor * size) {
+            resize();
         }
+        return collision;
     }
 
     /**
      * private polynomial hash function for the given key
      * 
-     * @param key is the board configuration
+     * @param key       is the board configuration
+     * @param tableSize is the size of the table the index is for
      */
 
-    private int hash(String key) {
+    private int hash(String key, int tableSize) {
         int hash = 0;
 
         // iterate through each character of the configuration
@@ -74,11 +107,93 @@ public class HashDictionary implements DictionaryADT {
              * create a polynomial hash function
              */
 
-            hash = (811 * hash + key.charAt(i)) % size;
+            // in long, 811 * hash overflows an int once the table has grown past about 2.6M buckets
+            hash = (int) ((811L * hash + key.charAt(i)) % tableSize);
         }
         return hash;
     }
 
+    /**
+     * @param config is the configuration from hash table
+     * @return the chain holding the record of config, or null if config is not in
+     *         either table
+     */
+    private LinkedList<Data> find(String config) {
+        LinkedList<Data> chain = table[hash(config, size)];
+        if (contains(chain, config)) {
+            return chain;
+        }
+        if (oldTable != null) {
+            int index = hash(config, oldSize);
+            // buckets below migrated have already been moved to the new table
+            if (index >= migrated && contains(oldTable[index], config)) {
+                return oldTable[index];
+            }
+        }
+        return null;
+    }
+
+    // returns true if the chain holds a record with the configuration
+    private boolean contains(LinkedList<Data> chain, String config) {
+        if (chain != null) {
+            for (Data data : chain) {
+                if (data.getConfiguration().equals(config)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // starts moving the records to a table about twice as large
+    private void resize() {
+        oldTable = table;
+        oldSize = size;
+        migrated = 0;
+        size = nextPrime(2 * size + 1); // a prime size spreads the polynomial hash evenly
+        table = newTable(size);
+    }
+
+    // moves the next MIGRATE_BUCKETS buckets of the old table to the new table
+    private void migrate() {
+        if (oldTable == null) {
+            return;
+        }
+        int end = Math.min(migrated + MIGRATE_BUCKETS, oldSize);
+        for (; migrated < end; migrated++) {
+            LinkedList<Data> chain = oldTable[migrated];
+            if (chain == null) {
+                continue;
+            }
+            for (Data data : chain) {
+                int index = hash(data.getConfiguration(), size);
+                if (table[index] == null) {
+                    table[index] = new LinkedList<>();
+                }
+                table[index].add(data);
+            }
+            oldTable[migrated] = null;
+        }
+        if (migrated == oldSize) {
+            oldTable = null; // every record has been moved
+        }
+    }
+
+    // returns the smallest prime number that is at least n
+    private static int nextPrime(int n) {
+        for (;; n++) {
+            boolean prime = n > 1;
+            for (int d = 2; prime && (long) d * d <= n; d++) {
+                if (n % d == 0) {
+                    prime = false;
+                }
+            }
+            if (prime) {
+                return n;
+            }
+        }
+    }
+
     /**
      * removes record with given configuration from hash table
      * 
@@ -86,23 +201,21 @@ public class HashDictionary implements DictionaryADT {
      * @throws DictionaryException if no record in hash table stores config
      */
     public void remove(String config) throws DictionaryException {
-        // calculate the index for the record using private hash function
-        int index = hash(config);
-        // linked list at position of record for separate chaining
-        LinkedList<Data> chain = table[index];
+        migrate(); // move a few buckets of the old table
+        // linked list holding the record for separate chaining
+        LinkedList<Data> chain = find(config);
+
+        if (chain == null) { // if no record stores config throw an exception
+            throw new DictionaryException();
+        }
 
-        boolean removed = false; // boolean to track removal
         for (Data data : chain) { // for each statement to iterates through separate chain
             if (data.getConfiguration().equals(config)) { // checks if data is the desired removal
                 chain.remove(data); // removes record from chain
-                removed = true; // changes boolean to removed
+                count--;
                 break;
             }
         }
-
-        if (!removed) { // if no record was remove throw an exception
-            throw new DictionaryException();
-        }
     }
 
     /**
@@ -111,15 +224,16 @@ public class HashDictionary implements DictionaryADT {
      *         not in the hash table
      */
     public int get(String config) {
-        // calculate the index for the record using private hash function
-        int index = hash(config);
-        // linked list at position of record for separate chaining
-        LinkedList<Data> chain = table[index];
-        // for each statement to iterates through separate chain
-        for (Data data : chain) {
-            if (data.getConfiguration().equals(config)) { // checks if data is the desired configuration
-                // finds the desired record and returns the score
-                return data.getScore();
+        migrate(); // move a few buckets of the old table
+        // linked list holding the record for separate chaining
+        LinkedList<Data> chain = find(config);
+        if (chain != null) {
+            // for each statement to iterates through separate chain
+            for (Data data : chain) {
+                if (data.getConfiguration().equals(config)) { // checks if data is the desired configuration
+                    // finds the desired record and returns the score
+                    return data.getScore();
+                }
             }
         }
         return -1; // if the specified configuration was not found return -1
@@ -130,13 +244,6 @@ public class HashDictionary implements DictionaryADT {
      * @return number of Data objects stored in the separate chaining hash table
      */
     public int numRecords() {
-        // count the total number of records
-        int count = 0;
-
-        // iterate through the hash table
-        for (LinkedList<Data> chain : table) {
-            count += chain.size(); // adds the size of each separate chain
-        }
         return count;
     }
-}
\ No newline at end of file
+}
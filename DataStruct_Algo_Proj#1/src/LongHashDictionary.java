@@ -0,0 +1,165 @@
+/**
+ * The LongHashDictionary class stores configuration scores keyed directly on
+ * the 64-bit Zobrist hash of the board. Keys and scores are kept in flat
+ * primitive arrays with open addressing (linear probing), so a lookup or
+ * insert never builds a String of the board and never allocates.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class LongHashDictionary {
+    private static final int MAX_LOAD_PERCENT = 50; // table grows once it is half full
+
+    private long[] keys; // Zobrist hash stored in each slot
+    private int[] scores; // score of the configuration in each slot
+    private boolean[] used; // true if the slot holds a record
+    private int mask; // capacity - 1, capacity is always a power of two
+    private int count; // number of records stored in the table
+
+    /**
+     * Constructor returns an empty hash table
+     *
+     * @param size is the expected number of records, the capacity of the table is
+     *             rounded up to the next power of two that keeps it at most half
+     *             full
+     */
+    public LongHashDictionary(int size) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD_PERCENT < size * 100) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    // creates empty arrays of the given capacity
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        scores = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        count = 0;
+    }
+
+    /**
+     * Adds the score of a configuration to the hash table
+     *
+     * @param key   Zobrist hash of the configuration
+     * @param score score of the configuration
+     * @return 1 if the home slot of the key was already taken (collision), 0
+     *         otherwise
+     * @throws DictionaryException if the key is already in the table
+     */
+    public int put(long key, int score) throws DictionaryException {
+        int index = index(key); // home slot of the key
+        int collision = 0;
+
+        while (used[index]) {
+            if (keys[index] == key) {
+                throw new DictionaryException(); // throws exception if duplicate is found
+            }
+            collision = 1;
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        scores[index] = score;
+        used[index] = true;
+        count++;
+
+        if (count * 100 > keys.length * MAX_LOAD_PERCENT) {
+            grow();
+        }
+        return collision;
+    }
+
+    /**
+     * removes the record with the given key, shifting back the records that
+     * follow it in the probe sequence
+     *
+     * @param key Zobrist hash of the configuration
+     * @throws DictionaryException if no record in hash table stores key
+     */
+    public void remove(long key) throws DictionaryException {
+        int index = find(key);
+
+        if (index == -1) {
+            throw new DictionaryException();
+        }
+
+        // backward shift deletion
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = index(keys[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                scores[hole] = scores[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        count--;
+    }
+
+    /**
+     * @param key Zobrist hash of the configuration
+     * @return score of the record with the given key or -1 if key is not in the
+     *         hash table
+     */
+    public int get(long key) {
+        int index = find(key);
+
+        if (index == -1) {
+            return -1;
+        }
+        return scores[index];
+    }
+
+    /**
+     * @return number of records stored in the hash table
+     */
+    public int numRecords() {
+        return count;
+    }
+
+    // returns the slot holding key or -1 if key is not in the table
+    private int find(long key) {
+        int index = index(key);
+
+        while (used[index]) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    // doubles the capacity of the table and re-inserts every record
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldScores = scores;
+        boolean[] oldUsed = used;
+
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int index = index(oldKeys[i]);
+                while (used[index]) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                scores[index] = oldScores[i];
+                used[index] = true;
+                count++;
+            }
+        }
+    }
+
+    // home slot of a key, Zobrist keys are already uniformly random so the two
+    // halves are simply folded together
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
@@ -1,11 +1,22 @@
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MainApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(MainApplication.class, args);
     }
 
+    // counters of every game search, also registered over JMX
+    @Bean
+    public SearchMetrics searchMetrics() {
+        SearchMetrics metrics = new SearchMetrics();
+        metrics.register("web");
+        return metrics;
+    }
+
 }
@@ -0,0 +1,317 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * The MonteCarloSearch class chooses the computer move with a Monte Carlo tree
+ * search (UCT) instead of exploring every play to a fixed depth, for boards too
+ * large for alpha/beta to look far enough ahead. Every iteration walks down the
+ * tree picking the child with the best upper confidence bound, adds the
+ * children of the configuration it stops at once it has been visited twice,
+ * finishes the game with random plays (a playout) and adds the result to every
+ * configuration on the path. The move played is the most visited root child.
+ *
+ * The nodes live in arrays allocated once, a node is an index into them and
+ * the children of a node are one block of consecutive indices, so a move
+ * allocates no nodes. When the arrays are full the tree stops growing and the
+ * remaining iterations only add playouts to the leaves.
+ *
+ * The tree is shared by the threads of a ForkJoinPool (tree parallelism): each
+ * thread plays on its own copy of the board, visits are counted on the way down
+ * so other threads see a visit without a win and spread out (virtual loss),
+ * and a node is expanded by the thread that moves it from LEAF to EXPANDING.
+ * The strength of a move is set by a fixed number of playouts or a time
+ * budget.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class MonteCarloSearch implements MoveChooser {
+    public static final int DEFAULT_NODES = 1 << 20; // nodes of the tree of one move
+    public static final int DEFAULT_PLAYOUTS = 20000; // playouts of a move without a time budget
+
+    private static final double EXPLORATION = Math.sqrt(2); // weight of the confidence bound in UCT
+    private static final int LEAF = 0; // children not added yet
+    private static final int EXPANDING = 1; // a thread is adding the children
+    private static final int EXPANDED = 2; // children can be selected
+    private static final int FULL = 3; // no room for the children, stays a leaf
+    private static final long[] NO_CUTOFFS = new long[0]; // cut counts added to the metrics
+
+    private Configurations configs; // game board, only copied, never changed
+    private int board_size; // size of game board
+    private int playouts; // playouts of a move without a time budget
+    private ForkJoinPool pool; // threads the tree is searched on
+    private Worker[] workers; // one per thread
+    private SearchMetrics metrics; // counters the moves add to, null for none
+
+    private int[] move; // square played to reach each node
+    private int[] firstChild; // index of the first child of each expanded node
+    private int[] childCount; // number of children of each expanded node
+    private AtomicIntegerArray visits; // iterations through each node
+    private AtomicIntegerArray wins; // half points won by the player who moved into each node
+    private AtomicIntegerArray state; // LEAF, EXPANDING, EXPANDED or FULL
+    private AtomicInteger nextNode = new AtomicInteger(); // first unused node
+    private AtomicInteger playoutsLeft = new AtomicInteger(); // playouts still to run
+    private char rootSymbol; // player to move at the root
+    private long deadline; // System.nanoTime() the search has to stop at
+
+    /**
+     * @param configs    game board
+     * @param board_size size of game board
+     * @param playouts   playouts of a move without a time budget
+     * @param threads    number of threads to search with
+     * @param nodes      largest number of nodes of the tree
+     */
+    public MonteCarloSearch(Configurations configs, int board_size, int playouts, int threads, int nodes) {
+        this.configs = configs;
+        this.board_size = board_size;
+        this.playouts = playouts;
+        this.pool = new ForkJoinPool(threads);
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++)
+            workers[i] = new Worker(board_size * board_size, i);
+
+        this.move = new int[nodes];
+        this.firstChild = new int[nodes];
+        this.childCount = new int[nodes];
+        this.visits = new AtomicIntegerArray(nodes);
+        this.wins = new AtomicIntegerArray(nodes);
+        this.state = new AtomicIntegerArray(nodes);
+    }
+
+    /**
+     * Searches the tree until the playouts or the time budget run out and
+     * chooses the most visited move for symbol
+     *
+     * @param symbol       player to move
+     * @param budgetMillis time budget of the move in milliseconds, 0 to run the
+     *                     fixed number of playouts
+     * @return the best play with its win rate on the scale of Evaluator, with row
+     *         and column -1 if the board is full
+     */
+    public PosPlay choosePlay(char symbol, long budgetMillis) {
+        long start = System.nanoTime();
+        rootSymbol = symbol;
+        deadline = budgetMillis > 0 ? start + budgetMillis * 1000000L : Long.MAX_VALUE;
+        playoutsLeft.set(budgetMillis > 0 ? Integer.MAX_VALUE : Math.max(playouts, 1));
+        newNode(0, -1);
+        nextNode.set(1);
+
+        for (Worker worker : workers)
+            worker.reset();
+        if (workers[0].emptyCount == 0)
+            return bestPlay(workers[0].board); // the board is full
+        for (Worker worker : workers)
+            pool.execute(worker);
+        long nodes = 0;
+        for (Worker worker : workers) {
+            worker.join();
+            nodes += worker.nodes;
+        }
+        PosPlay play = bestPlay(workers[0].board);
+        if (metrics != null) {
+            metrics.add(nodes, NO_CUTOFFS, 0, 0, 0);
+            metrics.recordMove(System.nanoTime() - start);
+        }
+        return play;
+    }
+
+    // returns the most visited root child, scored by its win rate
+    private PosPlay bestPlay(Configurations board) {
+        if (state.get(0) != EXPANDED) {
+            // no room for the root children or the board is full
+            for (int square = 0; square < board_size * board_size; square++)
+                if (board.squareIsEmpty(square / board_size, square % board_size))
+                    return new PosPlay(Evaluator.UNDECIDED, square / board_size, square % board_size);
+            return new PosPlay(rootSymbol == AlphaBetaSearch.COMPUTER ? Evaluator.BELOW_ALL : Evaluator.ABOVE_ALL,
+                    -1, -1);
+        }
+        int best = firstChild[0];
+        for (int child = firstChild[0]; child < firstChild[0] + childCount[0]; child++)
+            if (visits.get(child) > visits.get(best))
+                best = child;
+
+        int row = move[best] / board_size, column = move[best] % board_size;
+        board.savePlay(row, column, rootSymbol);
+        boolean won = board.winsAt(row, column, rootSymbol);
+        board.savePlay(row, column, ' ');
+        if (won) {
+            int score = rootSymbol == AlphaBetaSearch.COMPUTER ? Evaluator.COMPUTER_WINS : Evaluator.HUMAN_WINS;
+            return new PosPlay(score, row, column);
+        }
+
+        // win rate of the computer, kept strictly between a loss and a win
+        double rate = wins.get(best) / (2.0 * Math.max(visits.get(best), 1));
+        if (rootSymbol != AlphaBetaSearch.COMPUTER)
+            rate = 1 - rate;
+        int span = Evaluator.COMPUTER_WINS - Evaluator.HUMAN_WINS - 2;
+        return new PosPlay(Evaluator.HUMAN_WINS + 1 + (int) Math.round(rate * span), row, column);
+    }
+
+    // clears a node taken from the arrays
+    private void newNode(int node, int square) {
+        move[node] = square;
+        visits.set(node, 0);
+        wins.set(node, 0);
+        state.set(node, LEAF);
+    }
+
+    // sets the counters every move adds to, null for none
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // stops the threads of the pool
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /*
+     * Runs iterations on a private copy of the board until the search has to
+     * stop
+     */
+    private class Worker extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private Configurations board; // copy of the board at the root
+        private SplittableRandom random; // plays of the playouts
+        private int[] empty; // empty squares of the board, in no order
+        private int[] position; // index of each empty square in empty
+        private int emptyCount; // number of empty squares
+        private int[] path; // nodes visited by the current iteration
+        private int[] played; // squares played by the current iteration
+        private long nodes; // plays made since the last reset
+
+        public Worker(int squares, int seed) {
+            this.random = new SplittableRandom(2210 + seed);
+            this.empty = new int[squares];
+            this.position = new int[squares];
+            this.path = new int[squares + 1];
+            this.played = new int[squares];
+        }
+
+        // copies the root board and prepares the worker to be run again
+        private void reset() {
+            reinitialize();
+            board = new Configurations(configs);
+            board.setEvaluator(null); // playouts only need wins and draws
+            emptyCount = 0;
+            nodes = 0;
+            for (int square = 0; square < empty.length; square++)
+                if (board.squareIsEmpty(square / board_size, square % board_size))
+                    addEmpty(square);
+        }
+
+        protected void compute() {
+            while (System.nanoTime() < deadline && playoutsLeft.getAndDecrement() > 0)
+                iterate();
+        }
+
+        // selects a leaf, expands it, finishes the game from it and backs the result up
+        private void iterate() {
+            int node = 0, depth = 0, count = 0;
+            char symbol = rootSymbol; // player to move
+            char winner = 0; // winning symbol, ' ' for a draw, 0 while the game goes on
+            visits.incrementAndGet(0);
+            path[depth++] = 0;
+
+            while (winner == 0) {
+                if (state.get(node) != EXPANDED && !expand(node))
+                    break; // play out from this leaf
+                node = select(node);
+                visits.incrementAndGet(node); // virtual loss until the result is added
+                path[depth++] = node;
+                winner = play(move[node], symbol);
+                played[count++] = move[node];
+                symbol = symbol == AlphaBetaSearch.COMPUTER ? AlphaBetaSearch.HUMAN : AlphaBetaSearch.COMPUTER;
+            }
+
+            while (winner == 0) { // playout
+                int square = empty[random.nextInt(emptyCount)];
+                winner = play(square, symbol);
+                played[count++] = square;
+                symbol = symbol == AlphaBetaSearch.COMPUTER ? AlphaBetaSearch.HUMAN : AlphaBetaSearch.COMPUTER;
+            }
+            nodes += count;
+
+            // the node at depth d was moved into by the root player when d is odd
+            char other = rootSymbol == AlphaBetaSearch.COMPUTER ? AlphaBetaSearch.HUMAN : AlphaBetaSearch.COMPUTER;
+            for (int d = 1; d < depth; d++) {
+                char mover = (d & 1) == 1 ? rootSymbol : other;
+                wins.addAndGet(path[d], winner == mover ? 2 : winner == ' ' ? 1 : 0);
+            }
+
+            while (count > 0) { // take every play back
+                int square = played[--count];
+                board.savePlay(square / board_size, square % board_size, ' ');
+                addEmpty(square);
+            }
+        }
+
+        /**
+         * adds the children of a leaf visited before, for every empty square
+         *
+         * @return true if the node has children to select from
+         */
+        private boolean expand(int node) {
+            if ((node != 0 && visits.get(node) < 2) || !state.compareAndSet(node, LEAF, EXPANDING))
+                return false; // first visit, or another thread expands it or has given up
+            int base = nextNode.get() + emptyCount <= move.length ? nextNode.getAndAdd(emptyCount) : move.length;
+            if (base + emptyCount > move.length) {
+                state.set(node, FULL);
+                return false;
+            }
+            for (int i = 0; i < emptyCount; i++)
+                newNode(base + i, empty[i]);
+            firstChild[node] = base;
+            childCount[node] = emptyCount;
+            state.set(node, EXPANDED); // publishes the children to the other threads
+            return true;
+        }
+
+        // returns the child with the best upper confidence bound, an unvisited child first
+        private int select(int node) {
+            int first = firstChild[node], last = first + childCount[node];
+            double logVisits = Math.log(Math.max(visits.get(node), 1));
+            double bestValue = -1;
+            int best = first;
+            for (int child = first; child < last; child++) {
+                int n = visits.get(child);
+                if (n == 0)
+                    return child;
+                double value = wins.get(child) / (2.0 * n) + EXPLORATION * Math.sqrt(logVisits / n);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * plays symbol on an empty square
+         *
+         * @return symbol if it wins, ' ' if the board is full, 0 otherwise
+         */
+        private char play(int square, char symbol) {
+            int row = square / board_size, column = square % board_size;
+            board.savePlay(row, column, symbol);
+            removeEmpty(square);
+            if (board.winsAt(row, column, symbol))
+                return symbol;
+            return emptyCount == 0 ? ' ' : 0;
+        }
+
+        private void addEmpty(int square) {
+            position[square] = emptyCount;
+            empty[emptyCount++] = square;
+        }
+
+        private void removeEmpty(int square) {
+            int last = empty[--emptyCount];
+            empty[position[square]] = last;
+            position[last] = position[square];
+        }
+    }
+}
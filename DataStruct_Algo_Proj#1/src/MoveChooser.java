@@ -0,0 +1,21 @@
+/**
+ * The MoveChooser interface is the contract of every engine that can choose
+ * the computer move: the alpha/beta searches and the Monte Carlo tree search.
+ * An engine plays on the Configurations board it was created with and leaves
+ * it as it found it.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public interface MoveChooser {
+    /**
+     * Chooses the best move for symbol on the current board
+     *
+     * @param symbol       player to move
+     * @param budgetMillis time budget of the move in milliseconds, 0 for the
+     *                     fixed limit of the engine (its depth or number of
+     *                     playouts)
+     * @return the best play, with a score on the scale of Evaluator
+     */
+    PosPlay choosePlay(char symbol, long budgetMillis);
+}
@@ -0,0 +1,179 @@
+/**
+ * The OpenHashDictionary class implements the dictionary for all the
+ * configurations and scores using a hash table with open addressing (linear
+ * probing). Instead of a LinkedList chain of Data objects per bucket, the keys,
+ * their cached hash codes and the scores are kept in flat parallel arrays so a
+ * put or get does not allocate any list nodes or follow any pointer chains.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class OpenHashDictionary implements DictionaryADT {
+    private static final int MAX_LOAD_PERCENT = 50; // table grows once it is half full
+
+    private String[] keys; // configuration stored in each slot (null if slot is empty)
+    private int[] hashes; // cached hash code of the configuration in each slot
+    private int[] scores; // score of the configuration in each slot
+    private int mask; // capacity - 1, capacity is always a power of two
+    private int count; // number of records stored in the table
+
+    /**
+     * Constructor returns an empty hash table
+     *
+     * @param size is the expected number of records, the capacity of the table is
+     *             rounded up to the next power of two that keeps it at most half
+     *             full
+     */
+    public OpenHashDictionary(int size) {
+        int capacity = 16;
+        while (capacity * MAX_LOAD_PERCENT < size * 100) {
+            capacity <<= 1; // round up so the index can be taken with a bit mask
+        }
+        allocate(capacity);
+    }
+
+    // creates empty arrays of the given capacity
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        scores = new int[capacity];
+        mask = capacity - 1;
+        count = 0;
+    }
+
+    /**
+     * Adds record to the hash table and throws exception if record already exists
+     *
+     * @param record is the record to be added to the table
+     * @return 1 if the home slot of the record was already taken (collision), 0
+     *         otherwise
+     * @throws DictionaryException if a record with the same configuration is
+     *                             already in the table
+     */
+    public int put(Data record) throws DictionaryException {
+        String config = record.getConfiguration();
+        int hash = hash(config);
+        int index = hash & mask; // home slot of the record
+        int collision = 0;
+
+        // linear probing until an empty slot is found
+        while (keys[index] != null) {
+            if (hashes[index] == hash && keys[index].equals(config)) {
+                throw new DictionaryException(); // throws exception if duplicate is found
+            }
+            collision = 1; // home slot was taken by another record
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = config;
+        hashes[index] = hash;
+        scores[index] = record.getScore();
+        count++;
+
+        if (count * 100 > keys.length * MAX_LOAD_PERCENT) {
+            grow(); // keep probe sequences short
+        }
+        return collision;
+    }
+
+    /**
+     * removes record with given configuration from hash table. The records that
+     * follow it in the probe sequence are shifted back so no tombstones are left
+     * behind.
+     *
+     * @param config is the configuration from hash table
+     * @throws DictionaryException if no record in hash table stores config
+     */
+    public void remove(String config) throws DictionaryException {
+        int index = find(config);
+
+        if (index == -1) { // if no record was found throw an exception
+            throw new DictionaryException();
+        }
+
+        // backward shift deletion
+        int hole = index;
+        int next = (hole + 1) & mask;
+        while (keys[next] != null) {
+            int home = hashes[next] & mask;
+            // move the record into the hole if the hole lies between its home slot and
+            // its current slot (taking the wrap around the end of the table into account)
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                hashes[hole] = hashes[next];
+                scores[hole] = scores[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = null;
+        count--;
+    }
+
+    /**
+     * @param config is the configuration from hash table
+     * @return score of the record given the key configuration or -1 if config is
+     *         not in the hash table
+     */
+    public int get(String config) {
+        int index = find(config);
+
+        if (index == -1) {
+            return -1; // if the specified configuration was not found return -1
+        }
+        return scores[index];
+    }
+
+    /**
+     * @return number of records stored in the hash table
+     */
+    public int numRecords() {
+        return count;
+    }
+
+    // returns the slot holding config or -1 if config is not in the table
+    private int find(String config) {
+        int hash = hash(config);
+        int index = hash & mask;
+
+        while (keys[index] != null) {
+            if (hashes[index] == hash && keys[index].equals(config)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    // doubles the capacity of the table and re-inserts every record
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldScores = scores;
+
+        allocate(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = oldHashes[i] & mask;
+                while (keys[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                hashes[index] = oldHashes[i];
+                scores[index] = oldScores[i];
+                count++;
+            }
+        }
+    }
+
+    /**
+     * private hash function for the given key, the high bits of the String hash
+     * code are folded into the low bits since the index is taken with a mask
+     *
+     * @param key is the board configuration
+     */
+    private int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
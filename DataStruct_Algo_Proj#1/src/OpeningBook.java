@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The OpeningBook class answers the computer move of small boards from a file
+ * of solved configurations written by BookGenerator, so the game tree does not
+ * have to be searched. The file is memory-mapped, and a lookup is one probe of
+ * an open addressing table keyed on the canonical Zobrist hash of the board.
+ *
+ * File layout (big-endian):
+ * header: int MAGIC, byte board size, byte length to win, short 0,
+ * int capacity (a power of two), int number of entries;
+ * then capacity slots of SLOT_BYTES: long key, short best move + 1 on the
+ * canonical variant of the board (0 for an empty slot), short score.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class OpeningBook {
+    private static final int MAGIC = 0x4F504B32; // "OPK2", scores on the Evaluator scale
+    private static final int HEADER_BYTES = 16; // size of the header
+    private static final int SLOT_BYTES = 12; // size of one slot
+
+    // books already opened, shared by every game on the same board
+    private static final ConcurrentHashMap<String, OpeningBook> books = new ConcurrentHashMap<>();
+
+    private final MappedByteBuffer slots; // mapped file, only read with absolute gets
+    private final int mask; // capacity - 1
+    private final int count; // number of entries
+
+    /**
+     * Maps a book file into memory
+     *
+     * @param path        book file
+     * @param boardSize   size of game board the book has to be for
+     * @param lengthToWin length of consecutive pieces needed to win
+     * @throws IOException if the file cannot be read or is not a book for the
+     *                     board
+     */
+    public OpeningBook(Path path, int boardSize, int lengthToWin) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            slots = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (slots.capacity() < HEADER_BYTES || slots.getInt(0) != MAGIC || slots.get(4) != boardSize
+                || slots.get(5) != lengthToWin) {
+            throw new IOException(path + " is not an opening book for this board");
+        }
+        int capacity = slots.getInt(8);
+        if (Integer.bitCount(capacity) != 1 || slots.capacity() != HEADER_BYTES + (long) capacity * SLOT_BYTES) {
+            throw new IOException(path + " is damaged");
+        }
+        mask = capacity - 1;
+        count = slots.getInt(12);
+    }
+
+    /**
+     * @return the book file of a board: book-size-length.bin in the working
+     *         directory, next to the images of the game
+     */
+    public static Path path(int boardSize, int lengthToWin) {
+        return Paths.get("book-" + boardSize + "-" + lengthToWin + ".bin");
+    }
+
+    /**
+     * Opens the book of a board once and shares it
+     *
+     * @return the book or null if there is no usable book file for the board
+     */
+    public static OpeningBook forBoard(int boardSize, int lengthToWin) {
+        Path path = path(boardSize, lengthToWin);
+        if (!Files.isReadable(path)) {
+            return null;
+        }
+        return books.computeIfAbsent(path.toString(), name -> {
+            try {
+                return new OpeningBook(path, boardSize, lengthToWin);
+            } catch (IOException e) {
+                System.out.println("Opening book not used: " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * @param configs   current board
+     * @param boardSize size of game board
+     * @return the best play stored for the board with its score, or null if the
+     *         board is not in the book
+     */
+    public PosPlay play(Configurations configs, int boardSize) {
+        long key = configs.getHash();
+        for (int i = index(key);; i = (i + 1) & mask) {
+            int offset = HEADER_BYTES + i * SLOT_BYTES;
+            int move = slots.getShort(offset + 8) - 1;
+            if (move == -1) {
+                return null; // empty slot, the key is not in the book
+            }
+            if (slots.getLong(offset) == key) {
+                int square = configs.fromCanonical(move);
+                return new PosPlay(slots.getShort(offset + 10), square / boardSize, square % boardSize);
+            }
+        }
+    }
+
+    // returns the number of configurations in the book
+    public int numRecords() {
+        return count;
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    /**
+     * Writes a book file
+     *
+     * @param keys   canonical Zobrist hashes of the configurations
+     * @param moves  best move of each configuration on its canonical variant
+     * @param scores score of each configuration
+     * @param count  number of configurations in the arrays
+     */
+    public static void write(Path path, int boardSize, int lengthToWin, long[] keys, int[] moves, int[] scores,
+            int count) throws IOException {
+        int capacity = 2;
+        while (capacity < 2 * count) { // at most half full so probes stay short
+            capacity <<= 1;
+        }
+        int mask = capacity - 1;
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + capacity * SLOT_BYTES);
+        buffer.putInt(0, MAGIC);
+        buffer.put(4, (byte) boardSize);
+        buffer.put(5, (byte) lengthToWin);
+        buffer.putInt(8, capacity);
+        buffer.putInt(12, count);
+
+        for (int e = 0; e < count; e++) {
+            int i = (int) (keys[e] ^ (keys[e] >>> 32)) & mask;
+            while (buffer.getShort(HEADER_BYTES + i * SLOT_BYTES + 8) != 0) {
+                i = (i + 1) & mask; // linear probing
+            }
+            int offset = HEADER_BYTES + i * SLOT_BYTES;
+            buffer.putLong(offset, keys[e]);
+            buffer.putShort(offset + 8, (short) (moves[e] + 1));
+            buffer.putShort(offset + 10, (short) scores[e]);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
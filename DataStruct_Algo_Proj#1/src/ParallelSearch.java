@@ -0,0 +1,234 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ParallelSearch class spreads the root moves of the game tree over the
+ * threads of a ForkJoinPool. Following Young Brothers Wait, the first root move
+ * is searched on its own to get a good alpha/beta bound, then the remaining
+ * moves are searched in parallel. Every task plays on its own copy of the
+ * board and all tasks share one lock-free TranspositionTable, so a
+ * configuration solved by one thread is reused by the others. The best score
+ * found so far is shared so tasks that start later get a narrower window.
+ * Computer moves on a configuration of the OpeningBook, if one is set, are
+ * answered from it without searching.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class ParallelSearch implements MoveChooser {
+    private ForkJoinPool pool; // threads the root moves are searched on
+    private Configurations configs; // game board, only copied, never changed
+    private TranspositionTable configurations; // table shared by all threads
+    private int board_size; // size of game board
+    private int max_level; // maximum level of the game tree that will be explored
+    private OpeningBook book; // solved configurations, null if there is none
+    private SearchMetrics metrics; // counters every root move adds to, null for none
+
+    /**
+     * @param configs        game board
+     * @param configurations transposition table shared by all threads
+     * @param board_size     size of game board
+     * @param max_level      maximum level of the game tree that will be explored
+     * @param threads        number of threads to search with
+     */
+    public ParallelSearch(Configurations configs, TranspositionTable configurations, int board_size,
+            int max_level, int threads) {
+        this.pool = new ForkJoinPool(threads);
+        this.configs = configs;
+        this.configurations = configurations;
+        this.board_size = board_size;
+        this.max_level = max_level;
+    }
+
+    // explores max_level levels, or deepens until the time budget runs out
+    public PosPlay choosePlay(char symbol, long budgetMillis) {
+        return budgetMillis > 0 ? computerPlay(symbol, budgetMillis) : computerPlay(symbol);
+    }
+
+    /**
+     * Explore the game tree and choose the best move for symbol
+     *
+     * @return the best play, with row and column -1 if the board is full
+     */
+    public PosPlay computerPlay(char symbol) {
+        PosPlay play = bookPlay(symbol);
+        if (play != null)
+            return play;
+        long start = System.nanoTime();
+        configurations.newSearch();
+        play = searchRoot(symbol, max_level, Long.MAX_VALUE, -1);
+        if (metrics != null)
+            metrics.recordMove(System.nanoTime() - start);
+        return play;
+    }
+
+    /**
+     * Explore the game tree one level deeper at a time until the time budget
+     * runs out or max_level is reached, and choose the best move for symbol.
+     * The best move of each iteration is searched first in the next one.
+     *
+     * @param symbol       player to move
+     * @param budgetMillis time budget of the move in milliseconds
+     * @return best play of the deepest iteration that finished in time
+     */
+    public PosPlay computerPlay(char symbol, long budgetMillis) {
+        long start = System.nanoTime();
+        long deadline = start + budgetMillis * 1000000L;
+        int empty = 0;
+        PosPlay best = bookPlay(symbol);
+
+        if (best != null)
+            return best;
+        configurations.newSearch();
+        for (int row = 0; row < board_size; row++)
+            for (int column = 0; column < board_size; column++)
+                if (configs.squareIsEmpty(row, column))
+                    empty++;
+
+        for (int level = 0; level <= max_level; level++) {
+            // the first iteration only looks one play ahead and is never interrupted
+            PosPlay result = searchRoot(symbol, level, level == 0 ? Long.MAX_VALUE : deadline,
+                    best == null ? -1 : best.getRow() * board_size + best.getCol());
+            if (result == null)
+                break; // keep the result of the last finished iteration
+            best = result;
+
+            // a win or loss is already proven, or every remaining square was explored
+            if (best.getRow() == -1 || best.getScore() == Evaluator.COMPUTER_WINS
+                    || best.getScore() == Evaluator.HUMAN_WINS || level >= empty - 1)
+                break;
+        }
+        if (metrics != null)
+            metrics.recordMove(System.nanoTime() - start);
+        return best;
+    }
+
+    /**
+     * searches every root move with the given number of levels
+     *
+     * @param firstSquare root move searched on its own before the others, -1 for
+     *                    the first empty square
+     * @return the best play or null if the deadline passed before all root moves
+     *         were searched
+     */
+    private PosPlay searchRoot(char symbol, int levels, long deadline, int firstSquare) {
+        // best score found so far, the alpha bound of the computer or the beta bound of the human
+        AtomicInteger best = new AtomicInteger(
+                symbol == AlphaBetaSearch.COMPUTER ? Evaluator.BELOW_ALL : Evaluator.ABOVE_ALL);
+        List<RootMove> moves = new ArrayList<>();
+        for (int row = 0; row < board_size; row++)
+            for (int column = 0; column < board_size; column++)
+                if (configs.squareIsEmpty(row, column)) {
+                    RootMove move = new RootMove(row, column, symbol, best, levels, deadline);
+                    if (row * board_size + column == firstSquare)
+                        moves.add(0, move);
+                    else
+                        moves.add(move);
+                }
+
+        if (moves.isEmpty()) {
+            return new PosPlay(symbol == AlphaBetaSearch.COMPUTER ? Evaluator.BELOW_ALL : Evaluator.ABOVE_ALL, -1,
+                    -1);
+        }
+
+        // eldest brother first, then its younger brothers in parallel
+        pool.invoke(moves.get(0));
+        for (int i = 1; i < moves.size(); i++)
+            pool.execute(moves.get(i));
+        for (int i = 1; i < moves.size(); i++)
+            moves.get(i).join();
+
+        /**
+         * pick the best score; a score equal to the bound a task started with is
+         * only a bound, so on a tie the exact score wins, then the search order
+         */
+        RootMove chosen = moves.get(0);
+        for (RootMove move : moves) {
+            if (move.aborted)
+                return null;
+            boolean better = symbol == AlphaBetaSearch.COMPUTER ? move.score > chosen.score
+                    : move.score < chosen.score;
+            if (better || (move.score == chosen.score && move.exact && !chosen.exact))
+                chosen = move;
+        }
+        return new PosPlay(chosen.score, chosen.row, chosen.column);
+    }
+
+    // sets the opening book computer moves are answered from, null for none
+    public void setOpeningBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    // sets the counters every root move adds to, null for none
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // returns the play of the opening book for a computer move or null if the board is not in it
+    private PosPlay bookPlay(char symbol) {
+        return symbol == AlphaBetaSearch.COMPUTER && book != null ? book.play(configs, board_size) : null;
+    }
+
+    // stops the threads of the pool
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /*
+     * Searches one root move on a private copy of the board
+     */
+    private class RootMove extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+        private int row, column; // square of the root move
+        private char symbol; // player making the root move
+        private AtomicInteger best; // best root score found so far
+        private int levels; // maximum level of the game tree that will be explored
+        private long deadline; // System.nanoTime() the search has to stop at
+        private int score; // score of the root move
+        private boolean exact; // false if score is only a bound
+        private boolean aborted; // true if the deadline passed, score is not valid
+
+        public RootMove(int row, int column, char symbol, AtomicInteger best, int levels, long deadline) {
+            this.row = row;
+            this.column = column;
+            this.symbol = symbol;
+            this.best = best;
+            this.levels = levels;
+            this.deadline = deadline;
+        }
+
+        protected Integer compute() {
+            if (System.nanoTime() > deadline) {
+                aborted = true; // do not start a search that is already out of time
+                return -1;
+            }
+            Configurations board = new Configurations(configs);
+            AlphaBetaSearch search = new AlphaBetaSearch(board, configurations, board_size, levels);
+            search.setDeadline(deadline);
+            search.setMetrics(metrics);
+
+            if (symbol == AlphaBetaSearch.COMPUTER) {
+                int highest_score = best.get();
+                score = search.playScore(row, column, symbol, AlphaBetaSearch.HUMAN, highest_score,
+                        Evaluator.ABOVE_ALL, 0);
+                exact = score > highest_score;
+                aborted = search.isAborted();
+                if (!aborted)
+                    best.accumulateAndGet(score, Math::max);
+            } else {
+                int lowest_score = best.get();
+                score = search.playScore(row, column, symbol, AlphaBetaSearch.COMPUTER, Evaluator.BELOW_ALL,
+                        lowest_score, 0);
+                exact = score < lowest_score;
+                aborted = search.isAborted();
+                if (!aborted)
+                    best.accumulateAndGet(score, Math::min);
+            }
+            search.flushMetrics();
+            return score;
+        }
+    }
+}
@@ -4,6 +4,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
@@ -22,13 +26,21 @@ public class Play extends JFrame {
                             * Maximum level of the game tree that
                             * will be explored
                             */
-    private HashDictionary configurations;
+    private TranspositionTable configurations; /*
+                                                * Results of the searched
+                                                * configurations, kept for the
+                                                * whole game
+                                                */
+    private MoveChooser engine; /* Engine the computer moves are chosen with */
+    private long budget; /* Time budget of a computer move in milliseconds, 0 for none */
+    private Path tableFile; /* File the transposition table is saved to between games */
+    private SearchMetrics metrics; /* Counters of the computer searches, readable over JMX */
 
     /*
      * Constructor. Creates a panel to represent the game board and destroys
      * the panel when its window is closed.
      */
-    public Play(int size, int to_win, int depth) {
+    public Play(int size, int to_win, int depth, int threads, long millis, boolean mcts) {
         Container c = getContentPane();
         c.setLayout(new GridLayout(size, size));
         gameDisplay = new JButton[size][size];
@@ -46,20 +58,69 @@ public class Play extends JFrame {
 
         board_size = size;
         max_level = depth;
+        budget = millis;
         configs = new Configurations(size, to_win, depth); /* User code needed to play */
+        /* Cut off boards are scored by the open lines of each player */
+        configs.setEvaluator(new ThreatEvaluator(size, to_win));
+        configurations = configs.createTranspositionTable();
+        /* Warm start from the table saved by the last game on this board */
+        tableFile = Paths.get("table-" + size + "-" + to_win + ".bin");
+        if (Files.isReadable(tableFile)) {
+            try {
+                configurations.load(tableFile);
+            } catch (IOException e) {
+                System.out.println("Saved table not used: " + e.getMessage());
+            }
+        }
+        /* Count what the searches do, jconsole shows it under tictactoe:type=SearchMetrics */
+        metrics = new SearchMetrics();
+        metrics.register("Play");
+
+        /*
+         * Solved configurations written by BookGenerator, if there is a book for
+         * the board. The book plays perfectly, so like the web game it is only
+         * used when the search explores the whole game tree.
+         */
+        OpeningBook book = depth >= size * size ? OpeningBook.forBoard(size, to_win) : null;
+
+        /* Only the chosen engine is created, each may start its own threads */
+        if (mcts) { /* Playouts instead of a fixed depth, for boards too large for alpha/beta */
+            MonteCarloSearch monteCarloSearch = new MonteCarloSearch(configs, size, MonteCarloSearch.DEFAULT_PLAYOUTS,
+                    threads, MonteCarloSearch.DEFAULT_NODES);
+            monteCarloSearch.setMetrics(metrics);
+            engine = monteCarloSearch;
+        } else if (threads > 1) { /* Root moves are searched in parallel */
+            ParallelSearch parallelSearch = new ParallelSearch(configs, configurations, size, depth, threads);
+            parallelSearch.setMetrics(metrics);
+            parallelSearch.setOpeningBook(book);
+            engine = parallelSearch;
+        } else {
+            AlphaBetaSearch search = new AlphaBetaSearch(configs, configurations, size, depth);
+            search.setMetrics(metrics);
+            search.setOpeningBook(book);
+            engine = search;
+        }
     }
 
     /*
-     * To run the program type: java Play size length depth where
-     * size is the size of the board, length is the length of the X-shape of +shape
-     * needed to win the game, and depth is the number of levels of the game tree
-     * to be explored.
+     * To run the program type: java Play size length depth [threads [millis
+     * [engine]]] where size is the size of the board, length is the length of
+     * the X-shape of +shape needed to win the game, depth is the number of
+     * levels of the game tree to be explored, threads is the optional number of
+     * threads the computer searches with (1 by default), millis is the optional
+     * time budget of a computer move and engine is alphabeta (the default) or
+     * mcts. With a time budget the game tree is explored one level deeper at a
+     * time, up to depth levels, until the time runs out. The mcts engine
+     * ignores depth and runs MonteCarloSearch.DEFAULT_PLAYOUTS playouts per
+     * move, or as many as fit in the time budget.
+     * The transposition table is saved to table-size-length.bin when the game
+     * is closed and loaded again by the next game on the same board.
      */
     public static void main(String[] args) {
 
         /* Check that the number of arguments is the correct one */
-        if (args.length != 3) {
-            System.out.println("Usage: java Play board-size shape-length depth");
+        if (args.length < 3 || args.length > 6) {
+            System.out.println("Usage: java Play board-size shape-length depth [threads [millis [engine]]]");
             System.exit(0);
         }
         // String[] args2 = {"5", "5", "4"};
@@ -73,20 +134,39 @@ public class Play extends JFrame {
          */
         int adjacent_to_win = Integer.parseInt(args[1]);
         int depth = Integer.parseInt(args[2]);
+        int threads = args.length >= 4 ? Integer.parseInt(args[3]) : 1;
+        long millis = args.length >= 5 ? Long.parseLong(args[4]) : 0;
+        String engine = args.length == 6 ? args[5] : "alphabeta";
+        if (!engine.equals("alphabeta") && !engine.equals("mcts")) {
+            System.out.println("Usage: java Play board-size shape-length depth [threads [millis [engine]]]");
+            System.out.println("engine is alphabeta or mcts");
+            System.exit(0);
+        }
+        boolean mcts = engine.equals("mcts");
 
         /* Create the game board and start the game */
-        JFrame f = new Play(size, adjacent_to_win, depth);
+        Play f = new Play(size, adjacent_to_win, depth, threads, millis, mcts);
 
         f.setSize(size * 100, size * 100);
         f.setVisible(true);
 
         f.addWindowListener(new WindowAdapter() {
             public void windowClosing(WindowEvent event) {
+                f.saveTable();
                 System.exit(0);
             }
         });
     }
 
+    /* Save the transposition table for the next game on this board */
+    private void saveTable() {
+        try {
+            configurations.save(tableFile);
+        } catch (IOException e) {
+            System.out.println("Table not saved: " + e.getMessage());
+        }
+    }
+
     /*
      * Panel to represent the game board. It contaias methods for detecting
      * the play selected by the human player.
@@ -110,8 +190,10 @@ public class Play extends JFrame {
                 int row = -1, col = -1;
                 PosPlay pos;
 
-                if (game_ended)
+                if (game_ended) {
+                    saveTable();
                     System.exit(0);
+                }
                 /* Find out which position was selected by the player */
                 for (int i = 0; i < board_size; i++) {
                     for (int j = 0; j < board_size; j++)
@@ -131,17 +213,17 @@ public class Play extends JFrame {
                     gameDisplay[row][col].paint(gameDisplay[row][col].getGraphics());
 
                     configs.savePlay(row, col, HUMAN);
-                    if (configs.wins(HUMAN))
+                    if (configs.winsAt(row, col, HUMAN))
                         endGame("Human wins");
                     else {
                         if (configs.isDraw())
                             endGame("Game is a draw");
                         else {
-                            pos = computerPlay(COMPUTER, -1, 4, 0);
+                            pos = engine.choosePlay(COMPUTER, budget);
                             configs.savePlay(pos.getRow(), pos.getCol(), COMPUTER);
                             gameDisplay[pos.getRow()][pos.getCol()].setIcon(
                                     new ImageIcon("computer.gif"));
-                            if (configs.wins(COMPUTER))
+                            if (configs.winsAt(pos.getRow(), pos.getCol(), COMPUTER))
                                 endGame("Computer wins");
                             else if (configs.isDraw())
                                 endGame("Game is a draw");
@@ -153,71 +235,6 @@ public class Play extends JFrame {
             }
         }
 
-        /* Explore the game tree and choose the best move for the computer */
-        private PosPlay computerPlay(char symbol, int highest_score,
-                int lowest_score, int level) {
-
-            char opponent; // Opponent's symbol
-            PosPlay reply; // Opponent's best reply
-
-            int bestRow = -1;
-            int bestColumn = -1; // Position of best play
-
-            int value;
-            int lookupVal;
-
-            if (level == 0) /* Create new hash table */
-                configurations = configs.createDictionary();
-
-            if (symbol == COMPUTER) {
-                opponent = HUMAN;
-                value = -1;
-            } else {
-                opponent = COMPUTER;
-                value = 4;
-            }
-
-            for (int row = 0; row < board_size; row++)
-                for (int column = 0; column < board_size; column++) {
-                    if (configs.squareIsEmpty(row, column)) { // Empty position
-                        configs.savePlay(row, column, symbol); // Store next play
-                        if (configs.wins(symbol) || configs.isDraw() || (level >= max_level))
-                            // Game ending situation or max number of levels reached
-                            reply = new PosPlay(configs.evalBoard(), row, column);
-                        else {
-                            lookupVal = configs.repeatedConfiguration(configurations);
-                            if (lookupVal != -1)
-                                reply = new PosPlay(lookupVal, row, column);
-                            else {
-                                reply = computerPlay(opponent, highest_score,
-                                        lowest_score, level + 1);
-                                if (configs.repeatedConfiguration(configurations) == -1)
-                                    configs.addConfiguration(configurations, reply.getScore());
-                            }
-                        }
-                        configs.savePlay(row, column, ' ');
-
-                        if ((symbol == COMPUTER && reply.getScore() > value) ||
-                                (symbol == HUMAN && reply.getScore() < value)) {
-                            bestRow = row;
-                            bestColumn = column;
-                            value = reply.getScore();
-
-                            /* Alpha/beta cut */
-                            if (symbol == COMPUTER && value > highest_score)
-                                highest_score = value;
-                            else if (symbol == HUMAN && value < lowest_score)
-                                lowest_score = value;
-
-                            if (highest_score >= lowest_score)
-                                return new PosPlay(value, bestRow, bestColumn);
-                        }
-
-                    }
-                }
-            return new PosPlay(value, bestRow, bestColumn);
-        }
-
         /* Prompt the user for a key to terminate the game */
         private void endGame(String mssg) {
             System.out.println(mssg);
@@ -0,0 +1,139 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The SearchMetrics class counts what the game tree searches do: plays scored
+ * (nodes), alpha/beta cuts on each level, transposition table hits, misses and
+ * collisions, and the time of each computer move. A search counts in plain
+ * fields of its own and adds them here once per move, and the counters are
+ * LongAdders, so the metrics can stay on with many searches running at once.
+ *
+ * The counters can be read through the SearchMetricsMBean interface, directly
+ * or over JMX after register is called.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class SearchMetrics implements SearchMetricsMBean {
+    public static final int MAX_LEVELS = 64; // cuts on deeper levels are counted on the last one
+
+    private final LongAdder nodes = new LongAdder(); // plays scored
+    private final LongAdder[] cutoffs = new LongAdder[MAX_LEVELS]; // alpha/beta cuts on each level
+    private final LongAdder tableHits = new LongAdder(); // probes that replaced a search
+    private final LongAdder tableMisses = new LongAdder(); // probes that did not
+    private final LongAdder tableCollisions = new LongAdder(); // entries replaced by another configuration
+    private final LongAdder moves = new LongAdder(); // computer moves searched
+    private final LongAdder moveNanos = new LongAdder(); // time spent on those moves
+
+    public SearchMetrics() {
+        for (int i = 0; i < MAX_LEVELS; i++) {
+            cutoffs[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Adds the counts of one search
+     *
+     * @param searchNodes  plays scored
+     * @param levelCutoffs alpha/beta cuts on each level
+     * @param hits         table probes that replaced a search
+     * @param misses       table probes that did not
+     * @param collisions   table entries replaced by another configuration
+     */
+    public void add(long searchNodes, long[] levelCutoffs, long hits, long misses, long collisions) {
+        nodes.add(searchNodes);
+        for (int level = 0; level < levelCutoffs.length; level++) {
+            if (levelCutoffs[level] != 0) {
+                cutoffs[Math.min(level, MAX_LEVELS - 1)].add(levelCutoffs[level]);
+            }
+        }
+        tableHits.add(hits);
+        tableMisses.add(misses);
+        tableCollisions.add(collisions);
+    }
+
+    // counts a computer move that was searched for the given time
+    public void recordMove(long nanos) {
+        moves.increment();
+        moveNanos.add(nanos);
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server as
+     * tictactoe:type=SearchMetrics,name=name
+     *
+     * @return false if they could not be registered
+     */
+    public boolean register(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                    new ObjectName("tictactoe:type=SearchMetrics,name=" + ObjectName.quote(name)));
+            return true;
+        } catch (JMException e) {
+            return false;
+        }
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    public long[] getCutoffs() {
+        long[] counts = new long[MAX_LEVELS];
+        for (int i = 0; i < MAX_LEVELS; i++) {
+            counts[i] = cutoffs[i].sum();
+        }
+        return counts;
+    }
+
+    // returns the number of alpha/beta cuts on one level
+    public long getCutoffs(int level) {
+        return cutoffs[Math.min(level, MAX_LEVELS - 1)].sum();
+    }
+
+    public long getTableHits() {
+        return tableHits.sum();
+    }
+
+    public long getTableMisses() {
+        return tableMisses.sum();
+    }
+
+    public double getTableHitRate() {
+        long hits = tableHits.sum();
+        long probes = hits + tableMisses.sum();
+        return probes == 0 ? 0 : (double) hits / probes;
+    }
+
+    public long getTableCollisions() {
+        return tableCollisions.sum();
+    }
+
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    public long getMoveNanos() {
+        return moveNanos.sum();
+    }
+
+    public double getAverageMoveMillis() {
+        long count = moves.sum();
+        return count == 0 ? 0 : moveNanos.sum() / 1e6 / count;
+    }
+
+    public double getNodesPerSecond() {
+        long nanos = moveNanos.sum();
+        return nanos == 0 ? 0 : nodes.sum() * 1e9 / nanos;
+    }
+
+    // returns a one line summary of the counters
+    public String toString() {
+        return String.format("moves=%d avgMoveMs=%.2f nodes=%d nodesPerSec=%.0f tableHitRate=%.3f collisions=%d",
+                getMoves(), getAverageMoveMillis(), getNodes(), getNodesPerSecond(), getTableHitRate(),
+                getTableCollisions());
+    }
+}
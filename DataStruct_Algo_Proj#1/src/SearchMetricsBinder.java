@@ -0,0 +1,46 @@
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the SearchMetrics counters of the web games to Micrometer. The
+ * configuration is only used when Micrometer (the actuator) is on the
+ * classpath, and it is the only class of the application that uses Micrometer,
+ * so without it the application runs with the counters on JMX alone.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(MeterBinder.class)
+public class SearchMetricsBinder {
+
+    @Bean
+    public MeterBinder searchMetricsMeterBinder(SearchMetrics metrics) {
+        return registry -> {
+            FunctionCounter.builder("tictactoe.search.nodes", metrics, SearchMetrics::getNodes)
+                    .description("Plays scored by the game tree searches").register(registry);
+            FunctionCounter.builder("tictactoe.search.table.hits", metrics, SearchMetrics::getTableHits)
+                    .register(registry);
+            FunctionCounter.builder("tictactoe.search.table.misses", metrics, SearchMetrics::getTableMisses)
+                    .register(registry);
+            FunctionCounter.builder("tictactoe.search.table.collisions", metrics, SearchMetrics::getTableCollisions)
+                    .register(registry);
+            Gauge.builder("tictactoe.search.table.hit.rate", metrics, SearchMetrics::getTableHitRate)
+                    .register(registry);
+            FunctionTimer.builder("tictactoe.search.move", metrics, SearchMetrics::getMoves,
+                    SearchMetrics::getMoveNanos, TimeUnit.NANOSECONDS).register(registry);
+            for (int level = 0; level < SearchMetrics.MAX_LEVELS; level++) {
+                final int cutLevel = level;
+                FunctionCounter.builder("tictactoe.search.cutoffs", metrics, m -> m.getCutoffs(cutLevel))
+                        .tag("level", Integer.toString(level)).register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+/**
+ * Management interface of SearchMetrics, every getter is an attribute that
+ * JMX clients such as jconsole can read while games are played.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public interface SearchMetricsMBean {
+    // returns the number of plays scored by all searches
+    long getNodes();
+
+    // returns the number of alpha/beta cuts on each level of the game tree
+    long[] getCutoffs();
+
+    // returns the number of transposition table probes that replaced a search
+    long getTableHits();
+
+    // returns the number of transposition table probes that did not
+    long getTableMisses();
+
+    // returns hits / (hits + misses), 0 before the first probe
+    double getTableHitRate();
+
+    // returns the number of table entries replaced by another configuration
+    long getTableCollisions();
+
+    // returns the number of computer moves searched
+    long getMoves();
+
+    // returns the total time spent searching computer moves in nanoseconds
+    long getMoveNanos();
+
+    // returns the average time of a computer move in milliseconds
+    double getAverageMoveMillis();
+
+    // returns the nodes scored per second of search time
+    double getNodesPerSecond();
+}
@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
 public class TestDict {
 
     /*
@@ -8,24 +14,24 @@ public class TestDict {
     public static void main(String[] args) {
         // **************************************
         HashDictionary dict = new HashDictionary(13441);
-        boolean[] test = new boolean[11];
+        boolean[] test = new boolean[15];
         int i, j;
 
         if (args.length == 0)
-            for (i = 0; i < 11; ++i)
+            for (i = 0; i < 15; ++i)
                 test[i] = true;
         else {
             if (args[0].equals("help")) {
                 System.out.println("Usage: java TestDict, or java TestDict n1 n2 n3 ... ");
-                System.out.println("ni have value 1 - 10, only those tests will be run");
+                System.out.println("ni have value 1 - 14, only those tests will be run");
                 System.exit(0);
             }
 
-            for (i = 0; i < 11; ++i)
+            for (i = 0; i < 15; ++i)
                 test[i] = false;
             for (i = 0; i < args.length; ++i) {
                 j = Integer.parseInt(args[i]);
-                if (j >= 1 && j <= 10)
+                if (j >= 1 && j <= 14)
                     test[j] = true;
             }
         }
@@ -199,5 +205,253 @@ public class TestDict {
             } else
                 System.out.println("   Test 10 succeeded");
         System.out.println("Collisions------------------------" + collisions);
+
+        // Test 11: a line one piece short of a long line to win has to score
+        // as the best undecided board for its player, the weights must not wrap
+        passed = true;
+        if (test[11]) {
+            for (int length : new int[] { 17, 18, 20, 31 }) {
+                ThreatEvaluator computer = new ThreatEvaluator(length, length);
+                ThreatEvaluator human = new ThreatEvaluator(length, length);
+                ThreatEvaluator both = new ThreatEvaluator(length, length);
+                for (int col = 0; col < length - 1; ++col) {
+                    computer.update(col, ' ', 'O');
+                    human.update(col, ' ', 'X');
+                    both.update(col, ' ', 'O');
+                    both.update((length - 1) * length + col, ' ', 'X'); // same line on the last row
+                }
+                if (computer.score() != Evaluator.COMPUTER_WINS - 1 || human.score() != Evaluator.HUMAN_WINS + 1
+                        || both.score() != Evaluator.UNDECIDED)
+                    passed = false;
+            }
+            if (passed)
+                System.out.println("   Test 11 succeeded");
+            else
+                System.out.println("***Test 11 failed");
+        }
+        // Test 12: entries of the transposition table keep their edge values, are
+        // replaced by age and depth and survive a save and load
+        passed = true;
+        if (test[12]) {
+            try {
+                TranspositionTable table = new TranspositionTable(16); // 8 buckets of two slots
+                table.store(1, Short.MIN_VALUE, 255, TranspositionTable.UPPER_BOUND, 1022);
+                table.store(2, Short.MAX_VALUE, 0, TranspositionTable.EXACT, -1);
+                table.store(3, -1, 1, TranspositionTable.LOWER_BOUND, 0);
+                if (!holds(table.probe(1), Short.MIN_VALUE, 255, TranspositionTable.UPPER_BOUND, 1022)
+                        || !holds(table.probe(2), Short.MAX_VALUE, 0, TranspositionTable.EXACT, -1)
+                        || !holds(table.probe(3), -1, 1, TranspositionTable.LOWER_BOUND, 0))
+                    passed = false;
+                if (table.probe(9) != 0 || table.probe(1 | 1L << 40) != 0) // same bucket as key 1
+                    passed = false;
+
+                // same search: a shallower result is ignored, an equal one overwrites
+                if (table.store(1, 5, 254, TranspositionTable.EXACT, 7) != 0
+                        || !holds(table.probe(1), Short.MIN_VALUE, 255, TranspositionTable.UPPER_BOUND, 1022))
+                    passed = false;
+                table.store(1, Short.MAX_VALUE, 255, TranspositionTable.LOWER_BOUND, 0);
+                if (!holds(table.probe(1), Short.MAX_VALUE, 255, TranspositionTable.LOWER_BOUND, 0))
+                    passed = false;
+                for (i = 0; i < 256; ++i)
+                    table.newSearch(); // the age wraps around to the same search
+                table.store(1, 5, 254, TranspositionTable.EXACT, 7);
+                if (!holds(table.probe(1), Short.MAX_VALUE, 255, TranspositionTable.LOWER_BOUND, 0))
+                    passed = false;
+                table.newSearch();
+                table.store(1, 5, 254, TranspositionTable.EXACT, 7);
+                if (!holds(table.probe(1), 5, 254, TranspositionTable.EXACT, 7))
+                    passed = false;
+
+                // keys 4, 12, 20 and 28 share a bucket
+                table.store(4, 0, 5, TranspositionTable.EXACT, 0);
+                table.store(12, 0, 2, TranspositionTable.EXACT, 0);
+                if (table.store(20, 0, 7, TranspositionTable.EXACT, 0) != 1 || table.probe(12) != 0
+                        || table.probe(4) == 0 || table.probe(20) == 0)
+                    passed = false; // the shallower entry is replaced
+                table.newSearch();
+                if (table.store(28, 0, 0, TranspositionTable.EXACT, 0) != 1 || table.probe(4) != 0
+                        || table.probe(20) == 0)
+                    passed = false; // both are old, the shallower one is replaced
+                if (table.store(4, 0, 0, TranspositionTable.EXACT, 0) != 1 || table.probe(20) != 0
+                        || table.probe(28) == 0 || table.probe(4) == 0)
+                    passed = false; // the old entry is replaced even if it is deeper
+
+                Path dir = Files.createTempDirectory("TestDict");
+                Path file = dir.resolve("table.bin");
+                table.save(file);
+                table.save(file); // replaces the first file
+                TranspositionTable loaded = new TranspositionTable(16);
+                loaded.load(file);
+                if (loaded.numRecords() != table.numRecords() || dir.toFile().list().length != 1)
+                    passed = false; // no temporary file is left behind
+                for (long key : new long[] { 1, 2, 3, 4, 28 }) {
+                    long entry = table.probe(key);
+                    if (!holds(loaded.probe(key), TranspositionTable.score(entry), TranspositionTable.depth(entry),
+                            TranspositionTable.bound(entry), TranspositionTable.bestMove(entry)))
+                        passed = false;
+                }
+                Files.write(file, new byte[] { 1, 2, 3 });
+                try {
+                    loaded.load(file);
+                    passed = false;
+                } catch (IOException e) {
+                    // expected, the file was not written by save
+                }
+                Files.delete(file);
+                Files.delete(dir);
+            } catch (IOException e) {
+                passed = false;
+            }
+            if (passed)
+                System.out.println("   Test 12 succeeded");
+            else
+                System.out.println("***Test 12 failed");
+        }
+
+        // Test 13: WideBitBoard finds the same wins as a plain scan of the board on
+        // random positions, with lines crossing from one 64-bit word to the next
+        passed = true;
+        if (test[13]) {
+            Random random = new Random(2210);
+            int[] rowSteps = { 0, 1, 1, 1 };
+            int[] colSteps = { 1, 0, 1, -1 };
+            for (int size : new int[] { 9, 11, WideBitBoard.MAX_SIZE }) {
+                for (int length : new int[] { 3, 5, size }) {
+                    for (int round = 0; round < 200; ++round) {
+                        WideBitBoard board = new WideBitBoard(size, length);
+                        char[][] squares = new char[size][size];
+                        for (char[] row : squares)
+                            Arrays.fill(row, ' ');
+                        int count = random.nextInt(size * size / 2); // pieces placed anywhere
+                        for (int p = 0; p < count; ++p) {
+                            int row = random.nextInt(size), col = random.nextInt(size);
+                            squares[row][col] = random.nextBoolean() ? 'X' : 'O';
+                            board.set(row, col, squares[row][col]);
+                        }
+
+                        // a line of length - 1 or length pieces in a random direction
+                        char symbol = random.nextBoolean() ? 'X' : 'O';
+                        int d = random.nextInt(4);
+                        int run = length - random.nextInt(2);
+                        int row = random.nextInt(size - rowSteps[d] * (run - 1));
+                        int col = colSteps[d] == 0 ? random.nextInt(size) : random.nextInt(size - run + 1);
+                        if (colSteps[d] < 0)
+                            col += run - 1; // the line goes left from its first square
+                        for (int p = 0; p < run; ++p) {
+                            squares[row + p * rowSteps[d]][col + p * colSteps[d]] = symbol;
+                            board.set(row + p * rowSteps[d], col + p * colSteps[d], symbol);
+                        }
+                        BoardEngine copy = board.copy();
+                        for (char player : new char[] { 'X', 'O' })
+                            if (board.wins(player) != scanWins(squares, length, player)
+                                    || copy.wins(player) != board.wins(player))
+                                passed = false;
+
+                        // clearing a square of the line may break the win
+                        int p = random.nextInt(run);
+                        squares[row + p * rowSteps[d]][col + p * colSteps[d]] = ' ';
+                        board.set(row + p * rowSteps[d], col + p * colSteps[d], ' ');
+                        if (board.wins(symbol) != scanWins(squares, length, symbol))
+                            passed = false;
+                    }
+                }
+            }
+            if (passed)
+                System.out.println("   Test 13 succeeded");
+            else
+                System.out.println("***Test 13 failed");
+        }
+
+        // Test 14: OpenHashDictionary and LongHashDictionary still find every record
+        // after a backward shift deletion in the middle of a probe run or across the
+        // end of the table, and grow only once they are more than half full
+        passed = true;
+        if (test[14]) {
+            try {
+                // a one character configuration hashes to its character and a small
+                // long key to itself, so the home slot in a table of 16 is the key mod 16
+                long[][] runs = { { 0x47, 0x43, 0x53, 0x44, 0x63 }, // slots 7, 3, 4, 5, 6
+                        { 0x4E, 0x5E, 0x4F, 0x40 } }; // slots 14, 15, 0, 1
+                for (long[] run : runs)
+                    for (int removed = 0; removed < run.length; ++removed) {
+                        OpenHashDictionary open = new OpenHashDictionary(1);
+                        LongHashDictionary longs = new LongHashDictionary(1);
+                        for (int k = 0; k < run.length; ++k) {
+                            open.put(new Data(String.valueOf((char) run[k]), k));
+                            longs.put(run[k], k);
+                        }
+                        open.remove(String.valueOf((char) run[removed]));
+                        longs.remove(run[removed]);
+                        for (int k = 0; k < run.length; ++k) {
+                            int score = k == removed ? -1 : k;
+                            if (open.get(String.valueOf((char) run[k])) != score || longs.get(run[k]) != score)
+                                passed = false;
+                        }
+                        if (open.numRecords() != run.length - 1 || longs.numRecords() != run.length - 1)
+                            passed = false;
+                    }
+
+                // 9 records are more than half of 16 slots: 0x11 still collides with
+                // 0x01, 0x12 no longer collides with 0x02 in 32 slots
+                long[] keys = { 1, 2, 3, 4, 5, 6, 7, 0x18, 0x11, 0x12 };
+                int[] taken = { 0, 0, 0, 0, 0, 0, 0, 0, 1, 0 };
+                OpenHashDictionary open = new OpenHashDictionary(1);
+                LongHashDictionary longs = new LongHashDictionary(1);
+                for (int k = 0; k < keys.length; ++k)
+                    if (open.put(new Data(String.valueOf((char) keys[k]), k)) != taken[k]
+                            || longs.put(keys[k], k) != taken[k])
+                        passed = false;
+                for (int k = 0; k < keys.length; ++k)
+                    if (open.get(String.valueOf((char) keys[k])) != k || longs.get(keys[k]) != k)
+                        passed = false;
+                if (open.numRecords() != keys.length || longs.numRecords() != keys.length)
+                    passed = false;
+                try {
+                    longs.put(0x11, 0);
+                    passed = false;
+                } catch (DictionaryException e) {
+                    // expected, the key is already in the table
+                }
+                try {
+                    open.remove("missing");
+                    passed = false;
+                } catch (DictionaryException e) {
+                    // expected, the configuration is not in the table
+                }
+            } catch (DictionaryException e) {
+                passed = false;
+            }
+            if (passed)
+                System.out.println("   Test 14 succeeded");
+            else
+                System.out.println("***Test 14 failed");
+        }
+    }
+
+    // returns true if a packed transposition table entry holds the given values
+    private static boolean holds(long entry, int score, int depth, int bound, int bestMove) {
+        return entry != 0 && TranspositionTable.score(entry) == score && TranspositionTable.depth(entry) == depth
+                && TranspositionTable.bound(entry) == bound && TranspositionTable.bestMove(entry) == bestMove;
+    }
+
+    // returns true if symbol has length consecutive pieces in a row, column or
+    // diagonal of squares, checking every square one by one
+    private static boolean scanWins(char[][] squares, int length, char symbol) {
+        int size = squares.length;
+        int[][] steps = { { 0, 1 }, { 1, 0 }, { 1, 1 }, { 1, -1 } };
+        for (int row = 0; row < size; ++row)
+            for (int col = 0; col < size; ++col)
+                for (int[] step : steps) {
+                    int p = 0;
+                    while (p < length) {
+                        int r = row + p * step[0], c = col + p * step[1];
+                        if (r >= size || c < 0 || c >= size || squares[r][c] != symbol)
+                            break;
+                        ++p;
+                    }
+                    if (p == length)
+                        return true;
+                }
+        return false;
     }
 }
\ No newline at end of file
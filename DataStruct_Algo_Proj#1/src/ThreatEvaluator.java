@@ -0,0 +1,145 @@
+/**
+ * The ThreatEvaluator class scores a configuration by the open lines of each
+ * player. Every segment of lengthToWin squares in a row, column or diagonal
+ * (a window) that holds pieces of only one player is a threat of that player;
+ * a window with c pieces of the player is worth WEIGHT_BASE^(c-1), so a
+ * line one piece short of a win (c = lengthToWin - 1) is worth far more than
+ * several lines with fewer pieces. Windows holding both symbols can no longer be won and are
+ * worth nothing. The weights and the total are longs, and for long lines to
+ * win a weight stops growing once every window at that weight together would
+ * overflow the total; score() clamps the total to the scale of Evaluator. The score is the threats of the computer minus the threats of
+ * the human, added to UNDECIDED.
+ *
+ * The pieces of 'X' and 'O' in every window and the running total are updated
+ * on every play, only for the at most 4 * lengthToWin windows through the
+ * square, so score() takes constant time.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class ThreatEvaluator implements Evaluator {
+    private static final int WEIGHT_BASE = 4; // value of one more piece in a window
+
+    private final int[][] windowsOf; // windows through each square
+    private final long[] weights; // value of a window with c pieces of one player
+    private int[] xPieces; // pieces of 'X' in each window
+    private int[] oPieces; // pieces of 'O' in each window
+    private long total; // threats of 'O' minus threats of 'X'
+
+    /**
+     * @param boardSize   dimension of the board
+     * @param lengthToWin length of consecutive pieces needed to win
+     */
+    public ThreatEvaluator(int boardSize, int lengthToWin) {
+        int squares = boardSize * boardSize;
+        int[] count = new int[squares];
+
+        // count the windows through each square, then list them
+        int windows = listWindows(boardSize, lengthToWin, null, count);
+        this.windowsOf = new int[squares][];
+        for (int square = 0; square < squares; square++) {
+            windowsOf[square] = new int[count[square]];
+            count[square] = 0;
+        }
+        listWindows(boardSize, lengthToWin, windowsOf, count);
+
+        // largest weight, the total of every window at it still fits in a long
+        long maxWeight = Long.MAX_VALUE / Math.max(windows, 1);
+        this.weights = new long[lengthToWin + 1];
+        for (int c = 1; c < lengthToWin; c++) {
+            weights[c] = c == 1 ? 1 : Math.min(weights[c - 1], maxWeight / WEIGHT_BASE) * WEIGHT_BASE;
+        }
+        this.xPieces = new int[windows];
+        this.oPieces = new int[windows];
+    }
+
+    /**
+     * numbers every window of the board and adds it to the list of each of its
+     * squares
+     *
+     * @param lists windows through each square, null to only count them
+     * @param count number of windows already in the list of each square
+     * @return number of windows
+     */
+    private static int listWindows(int boardSize, int lengthToWin, int[][] lists, int[] count) {
+        // horizontal, vertical, main diagonal and reverse diagonal
+        int[] rowSteps = { 0, 1, 1, 1 };
+        int[] colSteps = { 1, 0, 1, -1 };
+        int windows = 0;
+
+        for (int d = 0; d < 4; d++) {
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    int endRow = row + rowSteps[d] * (lengthToWin - 1);
+                    int endCol = col + colSteps[d] * (lengthToWin - 1);
+                    if (endRow >= boardSize || endCol < 0 || endCol >= boardSize) {
+                        continue; // the window would leave the board
+                    }
+                    for (int i = 0; i < lengthToWin; i++) {
+                        int square = (row + i * rowSteps[d]) * boardSize + col + i * colSteps[d];
+                        if (lists != null) {
+                            lists[square][count[square]] = windows;
+                        }
+                        count[square]++;
+                    }
+                    windows++;
+                }
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Copy constructor, the windows never change so they are shared
+     *
+     * @param other evaluator to copy
+     */
+    public ThreatEvaluator(ThreatEvaluator other) {
+        this.windowsOf = other.windowsOf;
+        this.weights = other.weights;
+        this.xPieces = other.xPieces.clone();
+        this.oPieces = other.oPieces.clone();
+        this.total = other.total;
+    }
+
+    public Evaluator copy() {
+        return new ThreatEvaluator(this);
+    }
+
+    public void update(int square, char previous, char symbol) {
+        if (previous == symbol) {
+            return;
+        }
+        for (int window : windowsOf[square]) {
+            total -= value(window);
+            if (previous == 'X') {
+                xPieces[window]--;
+            } else if (previous == 'O') {
+                oPieces[window]--;
+            }
+            if (symbol == 'X') {
+                xPieces[window]++;
+            } else if (symbol == 'O') {
+                oPieces[window]++;
+            }
+            total += value(window);
+        }
+    }
+
+    // returns the threat of a window for 'O' (positive) or 'X' (negative)
+    private long value(int window) {
+        int x = xPieces[window];
+        int o = oPieces[window];
+        if (x == 0) {
+            return weights[o];
+        } else if (o == 0) {
+            return -weights[x];
+        }
+        return 0; // both players have a piece in the window, nobody can win it
+    }
+
+    public int score() {
+        // stay strictly between a human win and a computer win
+        return UNDECIDED + (int) Math.max(HUMAN_WINS + 1 - UNDECIDED, Math.min(total, COMPUTER_WINS - 1 - UNDECIDED));
+    }
+}
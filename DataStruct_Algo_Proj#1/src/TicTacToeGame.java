@@ -0,0 +1,190 @@
+import java.util.Arrays;
+
+/**
+ * The TicTacToeGame class holds one game played through the web interface: the
+ * board, the search the computer answers with and whether the game has ended.
+ * The human plays 'X' and the computer answers every human move with 'O'.
+ * The methods that touch the board are synchronized, so two requests for the
+ * same game cannot play on the board at the same time; different games share
+ * nothing.
+ *
+ * The computer reply can be searched on another thread: playHuman stores the
+ * human move, then computerMove searches without holding the lock of the game,
+ * so the board can still be read while the computer is thinking. No human move
+ * is accepted until the reply has been played.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class TicTacToeGame {
+    private static final int TABLE_SIZE = 1 << 14; // transposition table entries of one game
+
+    private Configurations configs; // game board used by the search
+    private char[][] board; // copy of the board returned to the clients
+    private AlphaBetaSearch search; // game tree search of the computer moves
+    private int boardSize; // size of game board
+    private long budget; // time budget of a computer move in milliseconds, 0 for none
+    private boolean gameOver; // true once a player has won or the board is full
+    private boolean computerToMove; // true from a human move until the computer reply is played
+    private int humanRow, humanCol; // square of the last human move
+    private String winner; // "Human" or "Computer", null for a draw or a running game
+
+    /**
+     * @param boardSize    size of game board, at most WideBitBoard.MAX_SIZE
+     * @param lengthToWin  length of consecutive pieces needed to win
+     * @param maxLevels    maximum level of the game tree that will be explored
+     * @param budgetMillis time budget of a computer move in milliseconds, 0 to
+     *                     always search maxLevels levels
+     * @param metrics      counters the searches of the game add to, null for
+     *                     none
+     */
+    public TicTacToeGame(int boardSize, int lengthToWin, int maxLevels, long budgetMillis,
+            SearchMetrics metrics) {
+        if (boardSize < 1 || lengthToWin < 1 || lengthToWin > boardSize) {
+            throw new IllegalArgumentException("Invalid board size or winning condition");
+        }
+        if (boardSize > WideBitBoard.MAX_SIZE) { // larger boards only cost memory, no engine plays them well
+            throw new IllegalArgumentException("Boards are at most " + WideBitBoard.MAX_SIZE + "x" + WideBitBoard.MAX_SIZE);
+        }
+        this.configs = new Configurations(boardSize, lengthToWin, maxLevels);
+        this.configs.setEvaluator(new ThreatEvaluator(boardSize, lengthToWin)); // scores boards cut off by maxLevels
+        this.board = new char[boardSize][boardSize];
+        for (char[] row : board) {
+            Arrays.fill(row, ' ');
+        }
+        this.search = new AlphaBetaSearch(configs, new TranspositionTable(TABLE_SIZE), boardSize, maxLevels);
+        this.search.setMetrics(metrics);
+        if (maxLevels >= boardSize * boardSize) // the book plays perfectly, only for a full depth search
+            search.setOpeningBook(OpeningBook.forBoard(boardSize, lengthToWin));
+        this.boardSize = boardSize;
+        this.budget = budgetMillis;
+    }
+
+    /**
+     * Plays the human move and, unless it ends the game, the computer reply
+     *
+     * @return false if the game is over or the square is not an empty square of
+     *         the board, nothing is played then
+     */
+    public boolean makeMove(int row, int col) {
+        if (!playHuman(row, col)) {
+            return false;
+        }
+        computerMove(budget);
+        return true;
+    }
+
+    /**
+     * Plays the human move, the computer has to reply with computerMove before
+     * the next human move unless the game is over
+     *
+     * @return false if the game is over, the computer has not replied yet or the
+     *         square is not an empty square of the board, nothing is played then
+     */
+    public synchronized boolean playHuman(int row, int col) {
+        if (gameOver || computerToMove || row < 0 || col < 0 || row >= boardSize || col >= boardSize
+                || !configs.squareIsEmpty(row, col)) {
+            return false;
+        }
+        play(row, col, AlphaBetaSearch.HUMAN);
+        humanRow = row;
+        humanCol = col;
+        computerToMove = !gameOver;
+        return true;
+    }
+
+    /**
+     * Takes back the last human move when the computer reply cannot be searched
+     */
+    public synchronized void takeBackHuman(int row, int col) {
+        if (computerToMove && board[row][col] == AlphaBetaSearch.HUMAN) {
+            configs.savePlay(row, col, ' ');
+            board[row][col] = ' ';
+            computerToMove = false;
+        }
+    }
+
+    /**
+     * Searches and plays the computer reply to the last human move. Only one
+     * thread may call it for a human move; the board stays readable meanwhile.
+     * If the search fails the human move is taken back, so the game takes moves
+     * again, and the failure is thrown on.
+     *
+     * @param budgetMillis time budget of the search in milliseconds, 0 to search
+     *                     maxLevels levels
+     */
+    public void computerMove(long budgetMillis) {
+        synchronized (this) {
+            if (!computerToMove) {
+                return;
+            }
+        }
+        // no human move is accepted while computerToMove is set, so the search owns configs
+        PosPlay pos = null;
+        try {
+            pos = search.choosePlay(AlphaBetaSearch.COMPUTER, budgetMillis);
+        } finally {
+            synchronized (this) {
+                if (pos != null) {
+                    play(pos.getRow(), pos.getCol(), AlphaBetaSearch.COMPUTER);
+                    computerToMove = false;
+                } else {
+                    clearSearchPlays();
+                    takeBackHuman(humanRow, humanCol);
+                }
+            }
+        }
+    }
+
+    // empties the squares a failed search left played on configs but not on the board
+    private void clearSearchPlays() {
+        for (int row = 0; row < boardSize; row++) {
+            for (int col = 0; col < boardSize; col++) {
+                if (board[row][col] == ' ' && !configs.squareIsEmpty(row, col)) {
+                    configs.savePlay(row, col, ' ');
+                }
+            }
+        }
+    }
+
+    // stores a play and checks whether it ends the game
+    private void play(int row, int col, char symbol) {
+        configs.savePlay(row, col, symbol);
+        board[row][col] = symbol;
+        if (configs.winsAt(row, col, symbol)) {
+            gameOver = true;
+            winner = symbol == AlphaBetaSearch.HUMAN ? "Human" : "Computer";
+        } else if (configs.isDraw()) {
+            gameOver = true;
+        }
+    }
+
+    // returns a copy of the board, every square holds 'X', 'O' or ' '
+    public synchronized char[][] getBoard() {
+        char[][] copy = new char[boardSize][];
+        for (int i = 0; i < boardSize; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
+    // returns true once a player has won or the board is full
+    public synchronized boolean isGameOver() {
+        return gameOver;
+    }
+
+    // returns true while the computer reply to the last human move is being searched
+    public synchronized boolean isComputerToMove() {
+        return computerToMove;
+    }
+
+    // returns the time budget of a computer move in milliseconds, 0 for none
+    public long getBudget() {
+        return budget;
+    }
+
+    // returns "Human" or "Computer", or null if the game is a draw or still running
+    public synchronized String getWinner() {
+        return winner;
+    }
+}
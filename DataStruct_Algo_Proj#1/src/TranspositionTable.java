@@ -0,0 +1,315 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The TranspositionTable class stores the result of every searched
+ * configuration for the whole game instead of a single computer turn. Each
+ * entry keeps the score, the number of levels that were searched below the
+ * configuration (depth), whether the score is exact or only a lower or upper
+ * bound because of an alpha/beta cut, and the best reply that was found.
+ *
+ * The table has a fixed number of slots so its memory stays bounded. Slots are
+ * grouped in buckets of two; when a bucket is full the entry left over from an
+ * older search is replaced first, then the entry with the smaller depth.
+ *
+ * An entry is packed into a single long:
+ * bits 0-15 score, bits 16-23 depth, bits 24-25 bound, bits 26-35 best move + 1,
+ * bits 36-43 age of the search that stored it and bit 63 set for a used slot.
+ *
+ * The table can be shared by several search threads without locks. A slot
+ * stores the key xor the entry next to the entry itself; a reader only accepts
+ * the entry if xoring the two values gives back its key, so a slot that another
+ * thread is halfway through writing is seen as a miss instead of a wrong
+ * result. Losing an entry to a race only costs a repeated search.
+ *
+ * The entries can be saved to a file and loaded into another table, so a new
+ * game or process starts warm. A save writes a temporary file next to the old
+ * one and moves it over the old file, so a failed save leaves the old file
+ * whole. A load reads the file through a memory-mapped FileChannel and copies
+ * the entries out of the mapping at once; the mapping stays until it is
+ * collected, which is why a save never writes into the mapped file.
+ * The Zobrist keys use a fixed seed, so a file stays valid between runs for the
+ * same board size and length to win. The file holds an int MAGIC, the int
+ * number of entries, then the 8-byte key and the 8-byte packed entry of each.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class TranspositionTable {
+
+    public static final int EXACT = 0; // score is the exact value of the configuration
+    public static final int LOWER_BOUND = 1; // real score is at least the stored score
+    public static final int UPPER_BOUND = 2; // real score is at most the stored score
+
+    private static final long USED = 1L << 63; // marks a slot that holds an entry
+    private static final int MAGIC = 0x54545432; // "TTT2", first int of a saved file
+    private static final int HEADER_BYTES = 8; // MAGIC and number of entries
+
+    private long[] keys; // Zobrist hash xor entry stored in each slot
+    private long[] entries; // packed entry stored in each slot, 0 if slot is empty
+    private int mask; // number of buckets - 1
+    private int age; // age of the current search, increased once per computer turn
+
+    /**
+     * Constructor returns an empty transposition table
+     *
+     * @param size is the number of entries the table can hold, rounded up to a
+     *             power of two
+     */
+    public TranspositionTable(int size) {
+        int capacity = 2;
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        entries = new long[capacity];
+        mask = (capacity >> 1) - 1; // two slots per bucket
+        age = 0;
+    }
+
+    // starts a new search, entries stored by earlier searches are replaced first
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * @param key Zobrist hash of the configuration
+     * @return the packed entry stored for the key or 0 if the key is not in the
+     *         table, use score, depth, bound and bestMove to read it
+     */
+    public long probe(long key) {
+        int slot = bucket(key);
+        for (int i = slot; i < slot + 2; i++) {
+            long entry = entries[i]; // read once, another thread may be writing the slot
+            if (entry != 0 && (keys[i] ^ entry) == key) {
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stores the result of searching a configuration
+     *
+     * @param key      Zobrist hash of the configuration
+     * @param score    score found for the configuration
+     * @param depth    number of levels searched below the configuration
+     * @param bound    EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param bestMove square of the best reply (row * boardSize + col) on the
+     *                 canonical variant of the board, or -1
+     * @return 1 if the entry of another configuration was replaced (collision),
+     *         0 otherwise
+     */
+    public int store(long key, int score, int depth, int bound, int bestMove) {
+        int slot = bucket(key);
+        long first = entries[slot];
+        long second = entries[slot + 1];
+        int victim;
+        long old;
+        int collision = 0;
+
+        if (first == 0 || (keys[slot] ^ first) == key) {
+            victim = slot;
+            old = first;
+        } else if (second == 0 || (keys[slot + 1] ^ second) == key) {
+            victim = slot + 1;
+            old = second;
+        } else if (preferredVictim(first, second)) {
+            victim = slot;
+            old = 0;
+            collision = 1;
+        } else {
+            victim = slot + 1;
+            old = 0;
+            collision = 1;
+        }
+
+        // keep a deeper result of the same configuration from the current search
+        if (old != 0 && age(old) == age && depth(old) > depth) {
+            return 0;
+        }
+
+        long entry = pack(score, depth, bound, bestMove);
+        keys[victim] = key ^ entry;
+        entries[victim] = entry;
+        return collision;
+    }
+
+    // returns true if the first entry should be replaced before the second one
+    private boolean preferredVictim(long first, long second) {
+        boolean firstOld = age(first) != age;
+        boolean secondOld = age(second) != age;
+        if (firstOld != secondOld) {
+            return firstOld; // replace the entry left over from an older search
+        }
+        return depth(first) <= depth(second); // otherwise replace the shallower entry
+    }
+
+    // returns the first slot of the bucket of the key
+    private int bucket(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) << 1;
+    }
+
+    private long pack(int score, int depth, int bound, int bestMove) {
+        return USED
+                | (score & 0xFFFFL)
+                | ((long) (depth & 0xFF) << 16)
+                | ((long) (bound & 0x3) << 24)
+                | ((long) ((bestMove + 1) & 0x3FF) << 26)
+                | ((long) age << 36);
+    }
+
+    // returns the score of a packed entry
+    public static int score(long entry) {
+        return (short) entry;
+    }
+
+    // returns the number of levels searched below the configuration of a packed entry
+    public static int depth(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+
+    // returns EXACT, LOWER_BOUND or UPPER_BOUND for a packed entry
+    public static int bound(long entry) {
+        return (int) (entry >>> 24) & 0x3;
+    }
+
+    // returns the square of the best reply of a packed entry or -1 if there is none
+    public static int bestMove(long entry) {
+        return ((int) (entry >>> 26) & 0x3FF) - 1;
+    }
+
+    // returns the age of the search that stored a packed entry
+    private static int age(long entry) {
+        return (int) (entry >>> 36) & 0xFF;
+    }
+
+    /**
+     * @return true if the entry can be used instead of searching the
+     *         configuration again with the given depth and alpha/beta window
+     * @param entry        packed entry returned by probe
+     * @param depth        number of levels that still have to be searched
+     * @param highestScore best score the computer is already guaranteed (alpha)
+     * @param lowestScore  best score the human is already guaranteed (beta)
+     */
+    public static boolean usable(long entry, int depth, int highestScore, int lowestScore) {
+        if (entry == 0 || depth(entry) < depth) {
+            return false; // not in the table or not searched deep enough
+        }
+        int score = score(entry);
+        switch (bound(entry)) {
+            case EXACT:
+                return true;
+            case LOWER_BOUND:
+                return score >= lowestScore; // would cause a cut anyway
+            default:
+                return score <= highestScore;
+        }
+    }
+
+    /**
+     * @return the bound type of a score returned by a search with the given
+     *         alpha/beta window
+     */
+    public static int boundOf(int score, int highestScore, int lowestScore) {
+        if (score <= highestScore) {
+            return UPPER_BOUND;
+        } else if (score >= lowestScore) {
+            return LOWER_BOUND;
+        }
+        return EXACT;
+    }
+
+    /**
+     * Writes every entry to a file, replacing it if it exists. Entries stored by
+     * other threads while the table is saved may be missed.
+     *
+     * @param path file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        long[] saved = new long[2 * entries.length]; // key and entry of each valid slot
+        int count = 0;
+        for (int i = 0; i < entries.length; i++) {
+            long entry = entries[i];
+            if (entry != 0) {
+                saved[2 * count] = keys[i] ^ entry;
+                saved[2 * count + 1] = entry;
+                count++;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * 2 * Long.BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putInt(count);
+        buffer.asLongBuffer().put(saved, 0, 2 * count);
+        buffer.rewind(); // the long view does not move the position
+
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary); // only left if the save failed
+        }
+    }
+
+    /**
+     * Stores the entries of a file written by save, as if they had been stored
+     * by the current search; a smaller table keeps the deeper entries
+     *
+     * @param path file to read
+     * @throws IOException if the file cannot be read or was not written by save
+     */
+    public void load(Path path) throws IOException {
+        long[] saved; // key and entry of each saved slot
+        int count;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a saved TranspositionTable");
+            }
+            count = buffer.getInt(4);
+            if (count < 0 || buffer.capacity() != HEADER_BYTES + (long) count * 2 * Long.BYTES) {
+                throw new IOException(path + " is damaged");
+            }
+            saved = new long[2 * count];
+            buffer.position(HEADER_BYTES);
+            buffer.asLongBuffer().get(saved);
+        }
+        for (int e = 0; e < count; e++) {
+            long entry = saved[2 * e + 1];
+            store(saved[2 * e], score(entry), depth(entry), bound(entry), bestMove(entry));
+        }
+    }
+
+    /**
+     * @return number of entries stored in the table
+     */
+    public int numRecords() {
+        int count = 0;
+        for (long entry : entries) {
+            if (entry != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
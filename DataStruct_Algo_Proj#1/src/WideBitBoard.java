@@ -0,0 +1,151 @@
+/**
+ * The WideBitBoard class stores a Tic-Tac-Toe board larger than 8x8, such as a
+ * 15x15 or 19x19 Gomoku board, as two bitsets of 64-bit words, one for the 'X'
+ * pieces and one for the 'O' pieces. Square (row, col) is bit row * boardSize
+ * + col, bit i being bit i % 64 of word i / 64.
+ *
+ * A win is found the same way as on BitBoard: the pieces are masked with the
+ * precomputed squares a winning line can start from in each direction, then
+ * anded with the pieces shifted 1 to lengthToWin - 1 steps in that direction.
+ * The shifts carry bits across words, and every word is finished on its own,
+ * so no temporary bitset is allocated.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 2: Tic-Tac-Toe
+ */
+public class WideBitBoard implements BoardEngine {
+
+    public static final int MAX_SIZE = 31; // a square has to fit in the 10 move bits of a TranspositionTable entry
+
+    private final long[] xBits; // squares taken by 'X'
+    private final long[] oBits; // squares taken by 'O'
+    private int pieces; // number of squares taken
+    private final int boardSize; // game board dimension
+    private final int lengthToWin; // length of consecutive pieces needed to win
+    private final int[] shifts; // bit distance between neighbours in each direction
+    private final long[][] startMasks; // squares a winning line can start from in each direction
+
+    /**
+     * @param boardSize   dimension of the board (at most MAX_SIZE)
+     * @param lengthToWin length of consecutive pieces needed to win
+     */
+    public WideBitBoard(int boardSize, int lengthToWin) {
+        if (boardSize > MAX_SIZE) {
+            throw new IllegalArgumentException("WideBitBoard supports boards up to " + MAX_SIZE + "x" + MAX_SIZE);
+        }
+        this.boardSize = boardSize;
+        this.lengthToWin = lengthToWin;
+        int words = (boardSize * boardSize + 63) >>> 6;
+        this.xBits = new long[words];
+        this.oBits = new long[words];
+
+        // horizontal, vertical, main diagonal and reverse diagonal
+        int[] rowSteps = { 0, 1, 1, 1 };
+        int[] colSteps = { 1, 0, 1, -1 };
+        this.shifts = new int[4];
+        this.startMasks = new long[4][words];
+
+        for (int d = 0; d < 4; d++) {
+            shifts[d] = rowSteps[d] * boardSize + colSteps[d];
+            // a line can start at (row, col) only if its last square is still on the board
+            for (int row = 0; row < boardSize; row++) {
+                for (int col = 0; col < boardSize; col++) {
+                    int endRow = row + rowSteps[d] * (lengthToWin - 1);
+                    int endCol = col + colSteps[d] * (lengthToWin - 1);
+                    if (endRow < boardSize && endCol >= 0 && endCol < boardSize) {
+                        int square = row * boardSize + col;
+                        startMasks[d][square >>> 6] |= 1L << square;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy constructor, the line masks never change so they are shared
+     *
+     * @param other bitboard to copy
+     */
+    public WideBitBoard(WideBitBoard other) {
+        this.xBits = other.xBits.clone();
+        this.oBits = other.oBits.clone();
+        this.pieces = other.pieces;
+        this.boardSize = other.boardSize;
+        this.lengthToWin = other.lengthToWin;
+        this.shifts = other.shifts;
+        this.startMasks = other.startMasks;
+    }
+
+    public BoardEngine copy() {
+        return new WideBitBoard(this);
+    }
+
+    // adds the character symbol to the given board position (' ' clears it)
+    public void set(int row, int col, char symbol) {
+        int square = row * boardSize + col;
+        int word = square >>> 6;
+        long bit = 1L << square; // shifts of a long only use the low 6 bits
+        if (((xBits[word] | oBits[word]) & bit) != 0) {
+            pieces--;
+        }
+        xBits[word] &= ~bit;
+        oBits[word] &= ~bit;
+        if (symbol == 'X') {
+            xBits[word] |= bit;
+            pieces++;
+        } else if (symbol == 'O') {
+            oBits[word] |= bit;
+            pieces++;
+        }
+    }
+
+    // returns true is board position is empty, false otherwise
+    public boolean isEmpty(int row, int col) {
+        int square = row * boardSize + col;
+        return ((xBits[square >>> 6] | oBits[square >>> 6]) & (1L << square)) == 0;
+    }
+
+    // returns true if every square of the board is taken
+    public boolean isFull() {
+        return pieces == boardSize * boardSize;
+    }
+
+    /**
+     * @return true if symbol has lengthToWin consecutive pieces in a row, column
+     *         or diagonal
+     * @param symbol is the specific sequence that is checked for (either 'X' or
+     *               'O')
+     */
+    public boolean wins(char symbol) {
+        long[] bits = symbol == 'X' ? xBits : oBits;
+
+        for (int d = 0; d < 4; d++) {
+            long[] starts = startMasks[d];
+            for (int w = 0; w < bits.length; w++) {
+                long line = bits[w] & starts[w];
+                /**
+                 * after the loop a bit is still set only if that square and the next
+                 * lengthToWin - 1 squares in direction d all hold the symbol
+                 */
+                for (int i = 1; i < lengthToWin && line != 0; i++) {
+                    line &= shiftedWord(bits, w, i * shifts[d]);
+                }
+                if (line != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // returns word w of the bitset shifted right by distance bits
+    private static long shiftedWord(long[] bits, int w, int distance) {
+        int from = w + (distance >>> 6);
+        int offset = distance & 63;
+        long low = from < bits.length ? bits[from] >>> offset : 0;
+        if (offset != 0 && from + 1 < bits.length) {
+            low |= bits[from + 1] << (64 - offset);
+        }
+        return low;
+    }
+}
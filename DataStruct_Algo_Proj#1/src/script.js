@@ -1,3 +1,5 @@
+var gameId = null; // id of the current game, sent with every move
+
 function startGame() {
     var difficulty = document.getElementById('difficulty').value;
     var boardSize = document.getElementById('boardSize').value;
@@ -17,6 +19,7 @@ function startGame() {
     })
     .then(response => response.json())
     .then(data => {
+        gameId = data.gameId;
         // Display game board
         var gameBoard = document.getElementById('gameBoard');
         gameBoard.innerHTML = '';
@@ -46,15 +49,22 @@ function makeMove(event) {
             'Content-Type': 'application/json'
         },
         body: JSON.stringify({
+            gameId: gameId,
             row: row,
             col: col
         })
     })
-    .then(response => response.json())
+    .then(response => {
+        if (!response.ok) {
+            throw new Error('Move rejected: ' + response.status);
+        }
+        return response.json();
+    })
     .then(data => {
-        // Update game board
-        var square = document.querySelector(`.square[data-row="${row}"][data-col="${col}"]`);
-        square.textContent = data.symbol;
+        // Update game board with the human move and the computer reply
+        document.querySelectorAll('.square').forEach(square => {
+            square.textContent = data.board[square.dataset.row][square.dataset.col];
+        });
         if (data.gameOver) {
             alert(data.message);
             // Optionally reset the game board or redirect to a new game
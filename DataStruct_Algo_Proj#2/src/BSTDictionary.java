@@ -1,3 +1,8 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
 /**
  * This BSTDictionary class implements the ordered dictionary using a binary
  * search tree from the BinarySearchTree class. The information of the
@@ -47,6 +52,56 @@ public class BSTDictionary implements BSTDictionaryADT {
         }
     }
 
+    /**
+     * The putAll method puts a batch of records into the dictionary. An empty
+     * dictionary is bulk loaded: the records are sorted once, unless they are
+     * already in order, and the BST is built balanced from them in linear
+     * time. A dictionary that already holds records takes them one at a time
+     * with put, after checking that none of their keys is in it yet. Throws a
+     * dictionary exception if two records have the same key, or one has the key
+     * of a record in the dictionary, nothing is added then.
+     */
+    public void putAll(List<Record> records) throws DictionaryException {
+        Record[] sorted = sortBatch(records);
+        if (BinarySearch.getRoot().getRecord() == null) {
+            BinarySearch.build(sorted); // empty, balanced BST of the sorted records
+            return;
+        }
+
+        for (Record record : sorted) { // not empty, check every key before inserting any
+            if (get(record.getKey()) != null) {
+                throw new DictionaryException("A record with the same key already exists.");
+            }
+        }
+        for (Record record : sorted) {
+            put(record);
+        }
+    }
+
+    /**
+     * @param records batch of records to bulk load
+     * @return the records in increasing order of key, sorted only if they were
+     *         not already in order
+     * @throws DictionaryException if two records have the same key
+     */
+    static Record[] sortBatch(List<Record> records) throws DictionaryException {
+        Record[] sorted = records.toArray(new Record[0]);
+        int i = 1;
+        while (i < sorted.length && sorted[i - 1].getKey().compareTo(sorted[i].getKey()) < 0) {
+            i++; // input files are often already in order, check before sorting
+        }
+        if (i < sorted.length) {
+            Arrays.sort(sorted, (a, b) -> a.getKey().compareTo(b.getKey()));
+        }
+
+        for (i = 1; i < sorted.length; i++) {
+            if (sorted[i - 1].getKey().compareTo(sorted[i].getKey()) == 0) {
+                throw new DictionaryException("A record with the same key already exists.");
+            }
+        }
+        return sorted;
+    }
+
     /**
      * The remove method removes a record from the BST by
      * calling the remove method from BinarySearchTree
@@ -231,4 +286,46 @@ public class BSTDictionary implements BSTDictionaryADT {
             return null; // returns null if largest record does not exist
         }
     }
+
+    /**
+     * The range method finds the first node with a key at least fromKey and
+     * then returns an iterator that follows the parent links of the BST from
+     * node to next node, so each record costs O(1) amortized instead of a new
+     * search from the root. The iterator stops before the first key at least
+     * toKey.
+     */
+    public Iterator<Record> range(Key fromKey, Key toKey) {
+        BSTNode first; // node of the first record of the range
+
+        if (fromKey == null) {
+            first = BinarySearch.smallest(BinarySearch.getRoot()); // range open at the start
+        } else {
+            first = BinarySearch.ceiling(BinarySearch.getRoot(), fromKey);
+        }
+
+        return new Iterator<Record>() {
+            private BSTNode next = inRange(first); // node of the next record, null when done
+
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            public Record next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Record record = next.getRecord();
+                next = inRange(BinarySearch.next(next)); // move to the next larger key
+                return record;
+            }
+
+            // returns node if its key is before toKey, null otherwise
+            private BSTNode inRange(BSTNode node) {
+                if (node == null || (toKey != null && node.getRecord().getKey().compareTo(toKey) >= 0)) {
+                    return null;
+                }
+                return node;
+            }
+        };
+    }
 }
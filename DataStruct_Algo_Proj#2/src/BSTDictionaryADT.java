@@ -1,3 +1,6 @@
+import java.util.Iterator;
+import java.util.List;
+
 public interface BSTDictionaryADT {
    /* Ordered Dictionary ADT */
 
@@ -14,6 +17,14 @@ public interface BSTDictionaryADT {
     */
    public void put(Record d) throws DictionaryException;
 
+   /*
+    * Inserts all the Records of the batch into the ordered dictionary. It throws a
+    * DictionaryException if two of them have the same Key attribute, or one has
+    * the Key attribute of a Record already in the dictionary; no Record of the
+    * batch is inserted then.
+    */
+   public void putAll(List<Record> batch) throws DictionaryException;
+
    /*
     * Removes the Record with the same Key attribute as k from the dictionary. It
     * throws a
@@ -48,4 +59,13 @@ public interface BSTDictionaryADT {
     * Returns null if the dictionary is empty.
     */
    public Record largest();
+
+   /*
+    * Returns the Records with keys from fromKey (included) up to toKey (not
+    * included) in increasing order of key. The Records are found one at a time
+    * as the iterator is used, so walking k of them costs O(log n + k). A null
+    * fromKey or toKey leaves that end of the range open. The dictionary must not
+    * change while the iterator is used.
+    */
+   public Iterator<Record> range(Key fromKey, Key toKey);
 }
\ No newline at end of file
@@ -3,7 +3,8 @@
  * class returns and updates the records of a node as well as
  * returning and updating a nodes parent, left child and right child. The
  * BSTNode also checks if a node is a leaf where a leaf is a node that
- * has a null record and 2 null children.
+ * has a null record and 2 null children. Each node keeps the height of its
+ * subtree so the BinarySearchTree can stay balanced.
  * 
  * @author Arya Zarei
  * 2210B Assignment 4
@@ -13,6 +14,7 @@ public class BSTNode {
     private BSTNode leftChild; // private left child instance variable
     private BSTNode rightChild; // private right child instance variable
     private BSTNode parent; // private parent node instance variable
+    private int height; // height of the subtree of the node, 0 for a leaf
 
     /**
      * @param item initializes the Record of a node: sets both children and parent 
@@ -23,6 +25,7 @@ public class BSTNode {
         this.leftChild = null;
         this.rightChild = null;
         this.parent = null;
+        this.height = item == null ? 0 : 1;
     }
 
     public Record getRecord() {
@@ -57,6 +60,14 @@ public class BSTNode {
         parent = u; // updates parent of a node
     }
 
+    public int getHeight() {
+        return height; // returns height of the subtree of a node
+    }
+
+    public void setHeight(int height) {
+        this.height = height; // updates height of the subtree of a node
+    }
+
     /**
      * @return true is node is a leaf checks if both children 
      * are null (leaf is a node with a null record)
@@ -0,0 +1,234 @@
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark program for the ordered dictionary. Each benchmark is run for a
+ * number of warmup iterations that are thrown away and then for a number of
+ * measured iterations; the throughput of every benchmark is written as one CSV
+ * line so runs can be compared to catch regressions. Every operation is
+ * measured with keys inserted in sorted order (the worst case of an unbalanced
+ * tree) and in random order.
+ *
+ * To run the program type: java Benchmark [filter] [output.csv] where filter
+ * only runs the benchmarks whose name contains it ("all" runs every
+ * benchmark) and output.csv is the file the results are written to (standard
+ * output by default).
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 4
+ */
+public class Benchmark {
+    private static final int WARMUP_ITERATIONS = 5; // iterations thrown away while the JIT compiles
+    private static final int MEASURED_ITERATIONS = 10; // iterations the results are taken from
+    private static final long ITERATION_NANOS = 200000000L; // minimum length of one iteration
+
+    private static volatile long sink; // results are written here so the JIT cannot drop the work
+
+    private static String filter; // only benchmarks whose name contains it are run
+    private static PrintStream out; // CSV output
+
+    /*
+     * A benchmarked operation, run returns a value that is fed to the sink
+     */
+    private interface Operation {
+        long run() throws DictionaryException;
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        filter = args.length > 0 && !args[0].equals("all") ? args[0] : "";
+        out = args.length > 1 ? new PrintStream(args[1]) : System.out;
+        out.println("benchmark,params,ops_per_sec,error_ops_per_sec,iterations");
+
+        for (int records : new int[] { 1000, 2000 }) {
+            for (boolean compact : new boolean[] { false, true }) {
+                dictionaryBenchmarks(records, true, compact);
+                dictionaryBenchmarks(records, false, compact);
+            }
+        }
+        for (int keys : new int[] { 2000, 200000 })
+            keyBenchmarks(keys);
+
+        out.flush();
+        if (out != System.out)
+            out.close();
+    }
+
+    /*
+     * BSTDictionary put/putAll/get/successor/range/remove with the keys
+     * inserted in sorted or random order; lookups and removals always use
+     * random order. compact runs them on CompactBSTDictionary, with the nodes in
+     * arrays, instead of BSTDictionary
+     */
+    private static void dictionaryBenchmarks(final int records, boolean sorted, final boolean compact) {
+        final Record[] inserted = new Record[records]; // records in insertion order
+        final Key[] lookups = new Key[records]; // keys in random order
+        Random random = new Random(2210);
+        for (int i = 0; i < records; i++) {
+            Key key = new Key(String.format("word%06d", i), 1 + (i & 3));
+            inserted[i] = new Record(key, "data" + i);
+            lookups[i] = key;
+        }
+        shuffle(lookups, random);
+        if (!sorted)
+            shuffle(inserted, random);
+
+        String params = "records=" + records + ";order=" + (sorted ? "sorted" : "random") + ";storage="
+                + (compact ? "arrays" : "nodes");
+
+        run("BSTDictionary.put", params, records, () -> {
+            BSTDictionaryADT dict = newDictionary(compact);
+            for (Record record : inserted)
+                dict.put(record);
+            return dict.smallest().getKey().getType();
+        });
+
+        final List<Record> batch = Arrays.asList(inserted);
+        run("BSTDictionary.putAll", params, records, () -> {
+            BSTDictionaryADT dict = newDictionary(compact);
+            dict.putAll(batch);
+            return dict.smallest().getKey().getType();
+        });
+
+        final BSTDictionaryADT filled = newDictionary(compact);
+        try {
+            for (Record record : inserted)
+                filled.put(record);
+        } catch (DictionaryException e) {
+            throw new IllegalStateException(e.getMessage());
+        }
+
+        run("BSTDictionary.get", params, records, () -> {
+            long total = 0;
+            for (Key key : lookups)
+                total += filled.get(key).getKey().getType();
+            return total;
+        });
+
+        run("BSTDictionary.successor", params, records, () -> {
+            long total = 0;
+            for (Key key : lookups) {
+                Record next = filled.successor(key);
+                total += next == null ? 0 : next.getKey().getType();
+            }
+            return total;
+        });
+
+        run("BSTDictionary.range", params, records, () -> {
+            long total = 0;
+            Iterator<Record> all = filled.range(null, null); // every record in order
+            while (all.hasNext())
+                total += all.next().getKey().getType();
+            return total;
+        });
+
+        run("BSTDictionary.remove", params, records, () -> {
+            BSTDictionaryADT dict = newDictionary(compact);
+            for (Record record : inserted)
+                dict.put(record);
+            for (Key key : lookups)
+                dict.remove(key);
+            return dict.smallest() == null ? 0 : 1;
+        });
+    }
+
+    /*
+     * Key.compareTo in a binary search of every key in the sorted keys, which
+     * compares like a tree descent without the tree. The labels are word-like,
+     * from 3 to 10 lowercase letters so some fit in the packed prefix of Key and
+     * some do not
+     */
+    private static void keyBenchmarks(final int keys) {
+        final Key[] words = new Key[keys]; // keys in random order
+        Random random = new Random(2210);
+        for (int i = 0; i < keys; i++) {
+            char[] letters = new char[3 + random.nextInt(8)];
+            for (int j = 0; j < letters.length; j++)
+                letters[j] = (char) ('a' + random.nextInt(26));
+            words[i] = new Key(new String(letters), 1 + (i & 3));
+        }
+        final Key[] sorted = words.clone(); // keys in order
+        Arrays.sort(sorted, (a, b) -> a.compareTo(b));
+
+        run("Key.compareTo", "keys=" + keys + ";search=binary", keys, () -> {
+            long total = 0;
+            for (Key key : words) {
+                int low = 0, high = keys - 1;
+                while (low <= high) {
+                    int middle = (low + high) >>> 1;
+                    int compare = key.compareTo(sorted[middle]);
+                    if (compare == 0) {
+                        total += middle;
+                        break;
+                    }
+                    if (compare < 0)
+                        high = middle - 1;
+                    else
+                        low = middle + 1;
+                }
+            }
+            return total;
+        });
+    }
+
+    // returns a new empty dictionary of the benchmarked storage
+    private static BSTDictionaryADT newDictionary(boolean compact) {
+        return compact ? new CompactBSTDictionary() : new BSTDictionary();
+    }
+
+    /**
+     * Runs one benchmark and writes its CSV line
+     *
+     * @param name             benchmark name
+     * @param params           parameters of the benchmark, separated by ';'
+     * @param operationsPerRun number of operations one call of the operation does
+     * @param operation        benchmarked operation
+     */
+    private static void run(String name, String params, int operationsPerRun, Operation operation) {
+        if (!name.contains(filter))
+            return;
+
+        double[] throughput = new double[MEASURED_ITERATIONS];
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+                long operations = 0;
+                long start = System.nanoTime();
+                long elapsed;
+                do {
+                    sink += operation.run();
+                    operations += operationsPerRun;
+                    elapsed = System.nanoTime() - start;
+                } while (elapsed < ITERATION_NANOS);
+                if (i >= WARMUP_ITERATIONS)
+                    throughput[i - WARMUP_ITERATIONS] = operations * 1e9 / elapsed;
+            }
+        } catch (DictionaryException e) {
+            throw new IllegalStateException(name + ": " + e.getMessage());
+        }
+
+        double mean = 0;
+        for (double value : throughput)
+            mean += value;
+        mean /= MEASURED_ITERATIONS;
+        double variance = 0;
+        for (double value : throughput)
+            variance += (value - mean) * (value - mean);
+        double error = Math.sqrt(variance / (MEASURED_ITERATIONS - 1));
+
+        out.printf("%s,%s,%.1f,%.1f,%d%n", name, params, mean, error, MEASURED_ITERATIONS);
+        out.flush();
+    }
+
+    // shuffles the array in place
+    private static <T> void shuffle(T[] array, Random random) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            T temp = array[i];
+            array[i] = array[j];
+            array[j] = temp;
+        }
+    }
+}
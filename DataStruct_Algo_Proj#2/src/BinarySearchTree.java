@@ -4,6 +4,11 @@
  * returns the predecessor and successor of a node as well as the smallest and
  * largest node in the BinarySearchTree.
  * 
+ * The tree is an AVL tree: after every insert and remove the heights of the
+ * two subtrees of every node differ by at most one, restored by rotations on
+ * the path back to the root, so the tree stays O(log n) high even when the
+ * records are inserted in sorted order.
+ * 
  * @author Arya Zarei
  * 2210B Assignment 4
  */
@@ -26,20 +31,24 @@ public class BinarySearchTree {
      * @return the node of the key to find in the BST starting at root r
      */
     public BSTNode get(BSTNode r, Key k) {
-        if (r == null || k == null || r.getRecord() == null) {
-            return null; // base case for empty tree, null key, or leaf node
+        if (k == null) {
+            return null; // null key is never in the tree
         }
+        BSTNode current = r; // current node starts at root
 
-        // compares key to current node
-        int compare = k.compareTo(r.getRecord().getKey());
+        while (current != null && current.getRecord() != null) { // stop at a leaf node
+            // compares key to current node
+            int compare = k.compareTo(current.getRecord().getKey());
 
-        if (compare == 0) {
-            return r; // if current node equals key return node
-        } else if (compare < 0) {
-            return get(r.getLeftChild(), k); // if key is smaller than current node check left tree
-        } else {
-            return get(r.getRightChild(), k); // if key is larger than current node check right tree
+            if (compare == 0) {
+                return current; // if current node equals key return node
+            } else if (compare < 0) {
+                current = current.getLeftChild(); // if key is smaller than current node check left tree
+            } else {
+                current = current.getRightChild(); // if key is larger than current node check right tree
+            }
         }
+        return null; // key is not in the tree
     }
 
     /**
@@ -49,65 +58,39 @@ public class BinarySearchTree {
      * @throws DictionaryException if node already exists in tree throw exception
      * 
      * Insert record d into the appropriate spot in the BST based on the key of 
-     * the record d. Using recursion to traverse the BST to and insert the
-     * new record into an appropriate leaf node.
+     * the record d. Walks down the BST in a loop to the leaf node where the
+     * key belongs and inserts the new record there.
      */
     public void insert(BSTNode r, Record d) throws DictionaryException {
-        if (r == null || r.getRecord() == null) {
-            // Base case: if empty tree or leaf node
-            r.setRecord(d); // insert record in this null node position
-
-            // create two new null record leaf children for the newly inserted leaf node
-            r.setLeftChild(new BSTNode(null));
-            r.setRightChild(new BSTNode(null));
-        }
+        BSTNode current = r; // current node starts at root
+        BSTNode parent = null; // last node passed on the way down
 
-        else {
+        while (current.getRecord() != null) { // walk down to a leaf node
             // compares key of new record to key of current node
-            int comparison = d.getKey().compareTo(r.getRecord().getKey());
+            int comparison = d.getKey().compareTo(current.getRecord().getKey());
 
             if (comparison == 0) {
                 // Key already exists in the tree, throw DictionaryException
                 throw new DictionaryException("Key already exists in the tree");
             }
 
-            else if (comparison < 0) { // if new key is smaller than current node
-
-                // if left child is null
-                if (r.getLeftChild().getRecord() == null) {
-
-                    r.getLeftChild().setRecord(d); // insert record into left child of current node
-                    r.getLeftChild().setParent(r); // set parent of the new node to the current node
-
-                    // create two new null record leaf children for newly inserted node
-                    r.getLeftChild().setLeftChild(new BSTNode(null));
-                    r.getLeftChild().setRightChild(new BSTNode(null));
-                }
-
-                else { // if left child of current is not null
-                       // recursive call to compare new node key with the key of left child of current
-                    insert(r.getLeftChild(), d);
-                }
+            parent = current;
+            if (comparison < 0) {
+                current = current.getLeftChild(); // if new key is smaller than current node go left
+            } else {
+                current = current.getRightChild(); // if new key is larger than current node go right
             }
+        }
 
-            else { // if new key is larger than current node
-                   // if right child is null
-                if (r.getRightChild().getRecord() == null) {
-
-                    r.getRightChild().setRecord(d); // insert record into right child of current node
-                    r.getRightChild().setParent(r); // set parent of the new node to the current node
-
-                    // create two new null record leaf children for newly inserted node
-                    r.getRightChild().setLeftChild(new BSTNode(null));
-                    r.getRightChild().setRightChild(new BSTNode(null));
-                }
-
-                else { // if right child of current is not null
-                       // recursive call to compare new node key with the key of right child of current
-                    insert(r.getRightChild(), d);
-                }
-            }
+        current.setRecord(d); // insert record in this null node position
+        if (parent != null) {
+            current.setParent(parent); // set parent of the new node to the last node passed
         }
+
+        // create two new null record leaf children for the newly inserted node
+        current.setLeftChild(new BSTNode(null));
+        current.setRightChild(new BSTNode(null));
+        rebalance(current); // restore the heights on the path to the root
     }
 
     /**
@@ -127,59 +110,26 @@ public class BinarySearchTree {
             throw new DictionaryException("No record found with the given key.");
         }
 
-        BSTNode parent = nodeToRemove.getParent(); // Get the parent of the node to remove
-        // Check if node to remove has two null record leaf children
-        if ((nodeToRemove.getLeftChild()) == null && (nodeToRemove.getRightChild() == null)) {
-
-            if (parent != null) { // If not root
-                nodeToRemove.setLeftChild(null); // remove null record left child
-                nodeToRemove.setRightChild(null); // remove null record right child
-                nodeToRemove.setRecord(null); // set record of node to null (turn node into a leaf)
-
-            }
-
-            else {
-                nodeToRemove.setLeftChild(null); // remove null record root left child
-                nodeToRemove.setRightChild(null);// remove null record root right child
-                nodeToRemove = null; // set root to null
-            }
-        }
-
-        else if (nodeToRemove.getLeftChild().isLeaf() || nodeToRemove.getRightChild().isLeaf()) {
-            // If the node to remove has one leaf (null record node)
-            BSTNode child;
-            // Check which child of the node to remove is leaf
-            if (!nodeToRemove.getLeftChild().isLeaf()) {
-                child = nodeToRemove.getLeftChild();
-            } else {
-                child = nodeToRemove.getRightChild();
-            }
-
-            // Check if the node to remove is not root
-            if (parent != null) {
-                if (parent.getLeftChild() == nodeToRemove) {
-                    // Replace node to remove with child
-                    parent.setLeftChild(child);
-                } else {
-                    /// Replace node to remove with child
-                    parent.setRightChild(child);
-                }
-            } else {
-                root = child; // Replace root to remove with child
-            }
-        }
-
-        else { // If the node to remove has two children
-
-            // Find the smallest node of the right subtree
+        if (!nodeToRemove.getLeftChild().isLeaf() && !nodeToRemove.getRightChild().isLeaf()) {
+            // If the node to remove has two children, move the record of the smallest
+            // node of the right subtree into it and remove that node instead
             BSTNode smallestRightTree = smallest(nodeToRemove.getRightChild());
-            // Replace the node to remove with the smallest node of the right subtree
             nodeToRemove.setRecord(smallestRightTree.getRecord());
+            nodeToRemove = smallestRightTree; // has a leaf as left child
+        }
 
-            // Recursively call the method with the replaced node to maintain the BST structure
-            remove(smallestRightTree, smallestRightTree.getRecord().getKey());
+        // The node to remove has at least one leaf (null record node) child,
+        // replace it with its other child
+        BSTNode child;
+        if (nodeToRemove.getLeftChild().isLeaf()) {
+            child = nodeToRemove.getRightChild();
+        } else {
+            child = nodeToRemove.getLeftChild();
         }
 
+        BSTNode parent = nodeToRemove.getParent(); // Get the parent of the node to remove
+        replaceChild(parent, nodeToRemove, child);
+        rebalance(parent); // restore the heights on the path to the root
     }
 
     /**
@@ -253,6 +203,81 @@ public class BinarySearchTree {
         }
     }
 
+    /**
+     * @param sorted records in increasing order of key, with no two equal keys
+     * 
+     * Replaces the tree with a perfectly balanced tree of the records, built
+     * bottom-up in linear time: the middle record becomes the root and each half
+     * becomes one of its subtrees the same way.
+     */
+    public void build(Record[] sorted) {
+        root = build(sorted, 0, sorted.length - 1, null);
+    }
+
+    // builds the balanced subtree of sorted[low..high] below parent
+    private BSTNode build(Record[] sorted, int low, int high, BSTNode parent) {
+        BSTNode node;
+        if (low > high) {
+            node = new BSTNode(null); // empty range, null record leaf node
+        } else {
+            int middle = (low + high) >>> 1;
+            node = new BSTNode(sorted[middle]);
+            node.setLeftChild(build(sorted, low, middle - 1, node));
+            node.setRightChild(build(sorted, middle + 1, high, node));
+            updateHeight(node);
+        }
+        node.setParent(parent);
+        return node;
+    }
+
+    /**
+     * @param r root of BST
+     * @param k key to start from
+     * @return the node with the smallest key larger than or equal to k, or null
+     *         if every key is smaller than k
+     */
+    public BSTNode ceiling(BSTNode r, Key k) {
+        BSTNode current = r; // current node starts at root
+        BSTNode closest = null; // smallest key at least k found so far
+
+        while (current != null && current.getRecord() != null) { // stop at a leaf node
+            int compare = k.compareTo(current.getRecord().getKey());
+
+            if (compare == 0) {
+                return current; // k itself is in the tree
+            } else if (compare < 0) {
+                closest = current; // current is larger, look for a closer one on the left
+                current = current.getLeftChild();
+            } else {
+                current = current.getRightChild(); // current is smaller, go right
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * @param node node of the BST
+     * @return the node with the next larger key, or null if node has the largest
+     * 
+     * Uses the parent links instead of searching again from the root: the next
+     * node is the smallest of the right subtree, or else the first ancestor
+     * reached from its left subtree.
+     */
+    public BSTNode next(BSTNode node) {
+        if (!node.getRightChild().isLeaf()) {
+            return smallest(node.getRightChild()); // leftmost node of right subtree
+        }
+
+        BSTNode current = node;
+        BSTNode parent = node.getParent();
+        while (parent != null && parent.getRightChild() == current) {
+            // climb while coming up from a right subtree
+            current = parent;
+            parent = parent.getParent();
+        }
+        return parent;
+    }
+
     /**
      * @param r root of tree or subtree of BST
      * @return the smallest node in the tree starting at r as the root
@@ -288,4 +313,92 @@ public class BinarySearchTree {
         }
         return current; // return rightmost node of tree (largest)
     }
+
+    /**
+     * @param r node whose subtree changed, may be null
+     * 
+     * Walks from r up to the root updating the height of every node and rotating
+     * the nodes whose subtrees differ in height by two back into balance.
+     */
+    private void rebalance(BSTNode r) {
+        BSTNode current = r;
+
+        while (current != null) {
+            int balance = current.getLeftChild().getHeight() - current.getRightChild().getHeight();
+
+            if (balance > 1) { // left subtree too high
+                BSTNode left = current.getLeftChild();
+                if (left.getLeftChild().getHeight() < left.getRightChild().getHeight()) {
+                    rotateLeft(left); // left-right case, make it a left-left case
+                }
+                current = rotateRight(current);
+            }
+
+            else if (balance < -1) { // right subtree too high
+                BSTNode right = current.getRightChild();
+                if (right.getRightChild().getHeight() < right.getLeftChild().getHeight()) {
+                    rotateRight(right); // right-left case, make it a right-right case
+                }
+                current = rotateLeft(current);
+            }
+
+            else {
+                updateHeight(current);
+            }
+            current = current.getParent(); // continue with the parent
+        }
+    }
+
+    /**
+     * @param r node to rotate, its right child is not a leaf
+     * @return the right child of r, which takes the place of r
+     */
+    private BSTNode rotateLeft(BSTNode r) {
+        BSTNode right = r.getRightChild();
+
+        replaceChild(r.getParent(), r, right); // right child moves up into the place of r
+        r.setRightChild(right.getLeftChild()); // left subtree of right child moves under r
+        right.getLeftChild().setParent(r);
+        right.setLeftChild(r); // r becomes the left child
+        r.setParent(right);
+
+        updateHeight(r);
+        updateHeight(right);
+        return right;
+    }
+
+    /**
+     * @param r node to rotate, its left child is not a leaf
+     * @return the left child of r, which takes the place of r
+     */
+    private BSTNode rotateRight(BSTNode r) {
+        BSTNode left = r.getLeftChild();
+
+        replaceChild(r.getParent(), r, left); // left child moves up into the place of r
+        r.setLeftChild(left.getRightChild()); // right subtree of left child moves under r
+        left.getRightChild().setParent(r);
+        left.setRightChild(r); // r becomes the right child
+        r.setParent(left);
+
+        updateHeight(r);
+        updateHeight(left);
+        return left;
+    }
+
+    // replaces child of parent (or the root if parent is null) with replacement
+    private void replaceChild(BSTNode parent, BSTNode child, BSTNode replacement) {
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.getLeftChild() == child) {
+            parent.setLeftChild(replacement);
+        } else {
+            parent.setRightChild(replacement);
+        }
+        replacement.setParent(parent);
+    }
+
+    // sets the height of an internal node from the heights of its children
+    private void updateHeight(BSTNode r) {
+        r.setHeight(1 + Math.max(r.getLeftChild().getHeight(), r.getRightChild().getHeight()));
+    }
 }
\ No newline at end of file
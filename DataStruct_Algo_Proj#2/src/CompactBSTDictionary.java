@@ -0,0 +1,408 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The CompactBSTDictionary class implements the ordered dictionary with the
+ * same AVL tree as BinarySearchTree, but keeps the nodes in parallel arrays
+ * instead of BSTNode objects. A node is an index: its record, children, parent
+ * and height are read from the arrays at that index. All null record leaves
+ * are the single shared node NIL, so the tree holds one node per record instead
+ * of a BSTNode and about one leaf BSTNode per record, and a lookup walks
+ * through a few arrays instead of objects spread over the heap. Removed nodes
+ * are reused by later puts.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 4
+ */
+public class CompactBSTDictionary implements BSTDictionaryADT {
+    private static final int NIL = 0; // shared leaf node, its fields are never written
+    private static final int INITIAL_CAPACITY = 16; // nodes of a new dictionary
+
+    private Record[] records; // record of each node
+    private int[] left; // left child of each node
+    private int[] right; // right child of each node, next free node for a removed node
+    private int[] parent; // parent of each node, NIL for the root
+    private byte[] height; // height of the subtree of each node, 0 for NIL
+    private int root = NIL; // root node, NIL if the dictionary is empty
+    private int nextNode = 1; // first node never used
+    private int free = NIL; // first removed node to reuse, NIL if none
+
+    public CompactBSTDictionary() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of records the arrays have room for before they
+     *                 grow
+     */
+    public CompactBSTDictionary(int capacity) {
+        records = new Record[capacity + 1];
+        left = new int[capacity + 1];
+        right = new int[capacity + 1];
+        parent = new int[capacity + 1];
+        height = new byte[capacity + 1];
+    }
+
+    /**
+     * The get method walks down from the root comparing keys and returns the
+     * record of the key k, or null if it is not in the dictionary
+     */
+    public Record get(Key k) {
+        int node = find(k);
+        return node == NIL ? null : records[node];
+    }
+
+    /**
+     * The put method walks down to the NIL leaf where the key of d belongs,
+     * puts a new node there and rebalances the path back to the root. Throws a
+     * dictionary exception if the record already exists.
+     */
+    public void put(Record d) throws DictionaryException {
+        int current = root, above = NIL, comparison = 0;
+
+        while (current != NIL) { // walk down to a leaf
+            comparison = d.getKey().compareTo(records[current].getKey());
+            if (comparison == 0) {
+                throw new DictionaryException("A record with the same key already exists.");
+            }
+            above = current;
+            current = comparison < 0 ? left[current] : right[current];
+        }
+
+        int node = newNode(d);
+        parent[node] = above;
+        if (above == NIL) {
+            root = node;
+        } else if (comparison < 0) {
+            left[above] = node;
+        } else {
+            right[above] = node;
+        }
+        rebalance(above);
+    }
+
+    /**
+     * The putAll method bulk loads an empty dictionary: the records are sorted
+     * once, unless they are already in order, and the tree is built balanced
+     * from them in linear time. A dictionary that already holds records takes
+     * them one at a time with put, after checking that none of their keys is in
+     * it yet. Throws a dictionary exception if two records have the same key, or
+     * one has the key of a record in the dictionary, nothing is added then.
+     */
+    public void putAll(List<Record> batch) throws DictionaryException {
+        Record[] sorted = BSTDictionary.sortBatch(batch);
+        if (root == NIL) {
+            ensureCapacity(sorted.length);
+            root = build(sorted, 0, sorted.length - 1, NIL);
+            return;
+        }
+
+        for (Record record : sorted) { // not empty, check every key before inserting any
+            if (find(record.getKey()) != NIL) {
+                throw new DictionaryException("A record with the same key already exists.");
+            }
+        }
+        ensureCapacity(sorted.length);
+        for (Record record : sorted) {
+            put(record);
+        }
+    }
+
+    // builds the balanced subtree of sorted[low..high] below the node above
+    private int build(Record[] sorted, int low, int high, int above) {
+        if (low > high) {
+            return NIL; // empty range, the shared leaf
+        }
+        int middle = (low + high) >>> 1;
+        int node = newNode(sorted[middle]);
+        parent[node] = above;
+        left[node] = build(sorted, low, middle - 1, node);
+        right[node] = build(sorted, middle + 1, high, node);
+        updateHeight(node);
+        return node;
+    }
+
+    /**
+     * The remove method replaces the node of k by its only non leaf child, or
+     * if it has two, moves the record of the smallest node of its right subtree
+     * into it and removes that node instead. Throws a dictionary exception if
+     * the key does not exist.
+     */
+    public void remove(Key k) throws DictionaryException {
+        int node = find(k);
+        if (node == NIL) {
+            throw new DictionaryException("No record found with the given key.");
+        }
+
+        if (left[node] != NIL && right[node] != NIL) {
+            int smallestRight = smallest(right[node]);
+            records[node] = records[smallestRight];
+            node = smallestRight; // has NIL as left child
+        }
+
+        int child = left[node] != NIL ? left[node] : right[node];
+        int above = parent[node];
+        replaceChild(above, node, child);
+
+        records[node] = null; // let the record be collected and reuse the node
+        right[node] = free;
+        free = node;
+        rebalance(above);
+    }
+
+    /**
+     * The successor method walks down from the root remembering the last key
+     * larger than k, so k does not need to be in the dictionary. Returns null
+     * if no key is larger than k.
+     */
+    public Record successor(Key k) {
+        int current = root, closest = NIL;
+
+        while (current != NIL) {
+            if (k.compareTo(records[current].getKey()) < 0) {
+                closest = current; // larger than k, look for a closer one on the left
+                current = left[current];
+            } else {
+                current = right[current];
+            }
+        }
+        return closest == NIL ? null : records[closest];
+    }
+
+    /**
+     * The predecessor method walks down from the root remembering the last key
+     * smaller than k, so k does not need to be in the dictionary. Returns null
+     * if no key is smaller than k.
+     */
+    public Record predecessor(Key k) {
+        int current = root, closest = NIL;
+
+        while (current != NIL) {
+            if (k.compareTo(records[current].getKey()) > 0) {
+                closest = current; // smaller than k, look for a closer one on the right
+                current = right[current];
+            } else {
+                current = left[current];
+            }
+        }
+        return closest == NIL ? null : records[closest];
+    }
+
+    // Return the smallest record in the dictionary, null if it is empty
+    public Record smallest() {
+        return root == NIL ? null : records[smallest(root)];
+    }
+
+    // Return the largest record in the dictionary, null if it is empty
+    public Record largest() {
+        if (root == NIL) {
+            return null;
+        }
+        int current = root;
+        while (right[current] != NIL) {
+            current = right[current];
+        }
+        return records[current];
+    }
+
+    /**
+     * The range method finds the first node with a key at least fromKey and
+     * returns an iterator that follows the parent links from node to next
+     * node, stopping before the first key at least toKey.
+     */
+    public Iterator<Record> range(Key fromKey, Key toKey) {
+        int first = NIL; // node of the first record of the range
+
+        if (fromKey == null) {
+            first = root == NIL ? NIL : smallest(root); // range open at the start
+        } else {
+            for (int current = root; current != NIL;) {
+                int compare = fromKey.compareTo(records[current].getKey());
+                if (compare <= 0) {
+                    first = current; // at least fromKey, look for a closer one on the left
+                    if (compare == 0) {
+                        break;
+                    }
+                    current = left[current];
+                } else {
+                    current = right[current];
+                }
+            }
+        }
+        final int start = first;
+
+        return new Iterator<Record>() {
+            private int next = inRange(start); // node of the next record, NIL when done
+
+            public boolean hasNext() {
+                return next != NIL;
+            }
+
+            public Record next() {
+                if (next == NIL) {
+                    throw new NoSuchElementException();
+                }
+                Record record = records[next];
+                next = inRange(nextNode(next)); // move to the next larger key
+                return record;
+            }
+
+            // returns node if its key is before toKey, NIL otherwise
+            private int inRange(int node) {
+                if (node == NIL || (toKey != null && records[node].getKey().compareTo(toKey) >= 0)) {
+                    return NIL;
+                }
+                return node;
+            }
+        };
+    }
+
+    // returns the node of key k, NIL if it is not in the dictionary
+    private int find(Key k) {
+        int current = root;
+        while (current != NIL) {
+            int compare = k.compareTo(records[current].getKey());
+            if (compare == 0) {
+                return current;
+            }
+            current = compare < 0 ? left[current] : right[current];
+        }
+        return NIL;
+    }
+
+    // returns the leftmost node of the subtree of node, which is not NIL
+    private int smallest(int node) {
+        while (left[node] != NIL) {
+            node = left[node];
+        }
+        return node;
+    }
+
+    // returns the node with the next larger key, NIL if node has the largest
+    private int nextNode(int node) {
+        if (right[node] != NIL) {
+            return smallest(right[node]);
+        }
+        int above = parent[node];
+        while (above != NIL && right[above] == node) { // climb while coming up from a right subtree
+            node = above;
+            above = parent[above];
+        }
+        return above;
+    }
+
+    // takes a removed node or a new one from the arrays for record d
+    private int newNode(Record d) {
+        int node;
+        if (free != NIL) {
+            node = free;
+            free = right[node];
+        } else {
+            ensureCapacity(1);
+            node = nextNode++;
+        }
+        records[node] = d;
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 1;
+        return node;
+    }
+
+    // grows the arrays so they have room for count more nodes than are used
+    private void ensureCapacity(int count) {
+        int needed = nextNode + count;
+        if (needed > records.length) {
+            int capacity = Math.max(needed, 2 * records.length);
+            records = Arrays.copyOf(records, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            height = Arrays.copyOf(height, capacity);
+        }
+    }
+
+    /**
+     * Walks from node up to the root updating the height of every node and
+     * rotating the nodes whose subtrees differ in height by two back into
+     * balance
+     */
+    private void rebalance(int node) {
+        int current = node;
+
+        while (current != NIL) {
+            int balance = height[left[current]] - height[right[current]];
+
+            if (balance > 1) { // left subtree too high
+                int child = left[current];
+                if (height[left[child]] < height[right[child]]) {
+                    rotateLeft(child); // left-right case, make it a left-left case
+                }
+                current = rotateRight(current);
+            } else if (balance < -1) { // right subtree too high
+                int child = right[current];
+                if (height[right[child]] < height[left[child]]) {
+                    rotateRight(child); // right-left case, make it a right-right case
+                }
+                current = rotateLeft(current);
+            } else {
+                updateHeight(current);
+            }
+            current = parent[current]; // continue with the parent
+        }
+    }
+
+    // moves the right child of node into its place and returns it
+    private int rotateLeft(int node) {
+        int child = right[node];
+
+        replaceChild(parent[node], node, child);
+        right[node] = left[child]; // left subtree of the child moves under node
+        if (left[child] != NIL) {
+            parent[left[child]] = node;
+        }
+        left[child] = node;
+        parent[node] = child;
+
+        updateHeight(node);
+        updateHeight(child);
+        return child;
+    }
+
+    // moves the left child of node into its place and returns it
+    private int rotateRight(int node) {
+        int child = left[node];
+
+        replaceChild(parent[node], node, child);
+        left[node] = right[child]; // right subtree of the child moves under node
+        if (right[child] != NIL) {
+            parent[right[child]] = node;
+        }
+        right[child] = node;
+        parent[node] = child;
+
+        updateHeight(node);
+        updateHeight(child);
+        return child;
+    }
+
+    // replaces child of above (or the root if above is NIL) with replacement
+    private void replaceChild(int above, int child, int replacement) {
+        if (above == NIL) {
+            root = replacement;
+        } else if (left[above] == child) {
+            left[above] = replacement;
+        } else {
+            right[above] = replacement;
+        }
+        if (replacement != NIL) {
+            parent[replacement] = above;
+        }
+    }
+
+    // sets the height of a node from the heights of its children
+    private void updateHeight(int node) {
+        height[node] = (byte) (1 + Math.max(height[left[node]], height[right[node]]));
+    }
+}
@@ -5,11 +5,13 @@ import java.io.FileReader;
 import java.io.IOException;
 //for list method
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Iterator;
 
 /**
  * This interface class reads the text file and adds all the Records of the text
- * file, label type and data to a Binary Search Tree dictionary. Then a user is
+ * file, label type and data to a Binary Search Tree dictionary. Run it with
+ * java Interface inputFile [compact], where compact keeps the tree in arrays
+ * with CompactBSTDictionary instead of BSTNode objects. Then a user is
  * able to input commands such as define, translate, sound, play, say,
  * show, animate, browse, add, delete, list, first and last that will perform
  * specific operations and outputs from the text file.
@@ -24,11 +26,14 @@ public class Interface {
         // and puts the Records in the BSTDictionary
 
         String inputFile = args[0]; // input file name
+        boolean compact = args.length > 1 && args[1].equals("compact"); // nodes kept in arrays
 
         try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
 
-            BSTDictionary dictionary = new BSTDictionary(); // BSTDictionary to store records
-            ArrayList<String> labelList = new ArrayList<>(); // List all all labels for the list command
+            // BSTDictionary to store records, or the array based CompactBSTDictionary
+            BSTDictionaryADT dictionary = compact ? new CompactBSTDictionary() : new BSTDictionary();
+            ArrayList<Record> records = new ArrayList<>(); // records of the file, bulk loaded at the end
+            PrefixIndex labels = new PrefixIndex(); // labels of all records for the list command
 
             String label; // string to process label from file
             String data; // string to process data from file
@@ -41,14 +46,16 @@ public class Interface {
                 data = line.substring(0); // string data starts from first index of line
                 Key key = new Key(label, type); // make key with type and label of line from file
                 Record record = new Record(key, data); // make a record with the key and data
-                dictionary.put(record); // add the record to the BSTDictionary
+                records.add(record); // add the record to the batch for the BSTDictionary
 
                 // for list command
-                labelList.add(label); // add label to the list of labels
+                labels.add(key.getLabel()); // add label to the prefix index of labels
             }
 
+            dictionary.putAll(records); // build the BSTDictionary from all records at once
+
             // Process user commands
-            processCommands(dictionary, labelList);
+            processCommands(dictionary, labels);
         }
 
         catch (IOException e) {
@@ -93,7 +100,7 @@ public class Interface {
 
     /**
      * @param dictionary storing all the records
-     * @param labelList  storing the list of all labels in file
+     * @param labels     prefix index of the labels of all records
      * @throws IOException
      * @throws DictionaryException
      * 
@@ -104,7 +111,7 @@ public class Interface {
      *                             computer, calls the defineCommand
      *                             with the command string "define computer".
      */
-    private static void processCommands(BSTDictionary dictionary, ArrayList<String> labelList)
+    private static void processCommands(BSTDictionaryADT dictionary, PrefixIndex labels)
             throws IOException, DictionaryException {
 
         StringReader keyboard = new StringReader(); // reads user input
@@ -151,15 +158,15 @@ public class Interface {
             }
 
             else if (command.startsWith("delete")) {
-                deleteCommand(dictionary, command); // delete record user inputted
+                deleteCommand(dictionary, labels, command); // delete record user inputted
             }
 
             else if (command.startsWith("add")) {
-                addCommand(dictionary, command); // add record user inputted
+                addCommand(dictionary, labels, command); // add record user inputted
             }
 
             else if (command.startsWith("list")) {
-                listCommand(labelList, command); // list labels starting with the prefix user inputted
+                listCommand(labels, command); // list labels starting with the prefix user inputted
             }
 
             else if (command.startsWith("first")) {
@@ -180,12 +187,12 @@ public class Interface {
      * @param dictionary to get data of record to define
      * @param command    label name to define
      */
-    private static void defineCommand(BSTDictionary dictionary, String command) {
+    private static void defineCommand(BSTDictionaryADT dictionary, String command) {
         // Extract the word to define
         String word = command.substring(7).trim(); // Skip "define" and trim any leading/trailing spaces
 
         // Search for the record in the dictionary
-        Key key = new Key(word.toLowerCase(), 1); // Type 1 indicates a word definition
+        Key key = new Key(word, 1); // Type 1 indicates a word definition
         Record record = dictionary.get(key); // get record of word inputted
 
         // Check if the record exists
@@ -204,12 +211,12 @@ public class Interface {
      * @param dictionary to get data of record to translate
      * @param command    label name to translate
      */
-    private static void translateCommand(BSTDictionary dictionary, String command) {
+    private static void translateCommand(BSTDictionaryADT dictionary, String command) {
         // Extract the word to translate
         String word = command.substring(9).trim(); // Skip "translate" and trim any leading/trailing spaces
 
         // Search for the record in the dictionary
-        Key key = new Key(word.toLowerCase(), 2); // Type 2 indicates a word translation
+        Key key = new Key(word, 2); // Type 2 indicates a word translation
         Record record = dictionary.get(key); // get record of word inputted
 
         // Check if the record exists
@@ -229,11 +236,11 @@ public class Interface {
      * @param dictionary to get data sound of label
      * @param command    label name to play sound
      */
-    private static void soundCommand(BSTDictionary dictionary, String command) {
+    private static void soundCommand(BSTDictionaryADT dictionary, String command) {
 
         // Extract name of sound file
         String word = command.substring(6).trim(); // Skip "sound" and trim any leading/trailing spaces
-        Key key = new Key(word.toLowerCase(), 3); // Type 3 indicates a sound file
+        Key key = new Key(word, 3); // Type 3 indicates a sound file
         Record record = dictionary.get(key); // get record of word inputted
 
         // Check if the record exists
@@ -259,10 +266,10 @@ public class Interface {
      * @param dictionary to get data music of label
      * @param command    label name to play music
      */
-    private static void playCommand(BSTDictionary dictionary, String command) {
+    private static void playCommand(BSTDictionaryADT dictionary, String command) {
 
         String word = command.substring(5).trim(); // Skip "play" and trim any leading/trailing spaces
-        Key key = new Key(word.toLowerCase(), 4); // Type 4 indicates a music file
+        Key key = new Key(word, 4); // Type 4 indicates a music file
         Record record = dictionary.get(key); // get record of word inputted
 
         if (record != null) {
@@ -288,10 +295,10 @@ public class Interface {
      * @param dictionary to get data sound of label
      * @param command    label name to play word
      */
-    private static void sayCommand(BSTDictionary dictionary, String command) {
+    private static void sayCommand(BSTDictionaryADT dictionary, String command) {
 
         String word = command.substring(4).trim(); // Skip "say" and trim any leading/trailing spaces
-        Key key = new Key(word.toLowerCase(), 5); // Type 5 indicates a voice file
+        Key key = new Key(word, 5); // Type 5 indicates a voice file
         Record record = dictionary.get(key); // get record of word inputted
 
         // Check if the record exists
@@ -318,10 +325,10 @@ public class Interface {
      * @param dictionary to get data image of label
      * @param command    label name to show image
      */
-    private static void showCommand(BSTDictionary dictionary, String command) {
+    private static void showCommand(BSTDictionaryADT dictionary, String command) {
 
         String word = command.substring(5).trim(); // Skip "show" and trim any leading/trailing spaces
-        Key key = new Key(word.toLowerCase(), 6); // Type 6 indicates an image file
+        Key key = new Key(word, 6); // Type 6 indicates an image file
         Record record = dictionary.get(key); // get record of word inputted
 
         // Check if the record exists
@@ -347,10 +354,10 @@ public class Interface {
      * @param dictionary to get data animation of label
      * @param command    label name to show animation
      */
-    private static void animateCommand(BSTDictionary dictionary, String command) {
+    private static void animateCommand(BSTDictionaryADT dictionary, String command) {
 
         String word = command.substring(8).trim(); // Skip "animate" and trim any leading/trailing spaces
-        Key key = new Key(word.toLowerCase(), 7); // Type 7 indicates an animated image file
+        Key key = new Key(word, 7); // Type 7 indicates an animated image file
         Record record = dictionary.get(key); // get record of word inputted
 
         // Check if the record exists
@@ -377,10 +384,10 @@ public class Interface {
      * @param dictionary to get data website of label
      * @param command    label name to show website
      */
-    private static void browseCommand(BSTDictionary dictionary, String command) {
+    private static void browseCommand(BSTDictionaryADT dictionary, String command) {
 
         String word = command.substring(7).trim(); // Skip "browse" and trim any leading/trailing spaces
-        Key key = new Key(word.toLowerCase(), 8); // Type 8 indicates a webpage URL
+        Key key = new Key(word, 8); // Type 8 indicates a webpage URL
         Record record = dictionary.get(key); // get record of word inputted
 
         // Check if the record exists
@@ -399,9 +406,11 @@ public class Interface {
 
     /**
      * @param dictionary to get record to delete
+     * @param labels     prefix index the label of the record is removed from
      * @param command    label name to delete record
      */
-    private static void deleteCommand(BSTDictionary dictionary, String command) throws DictionaryException {
+    private static void deleteCommand(BSTDictionaryADT dictionary, PrefixIndex labels, String command)
+            throws DictionaryException {
         // Extract the key from the command
         String[] parts = command.split(" ");
 
@@ -424,14 +433,17 @@ public class Interface {
 
         else { // remove record from dictionary
             dictionary.remove(deleteKey);
+            labels.remove(deleteKey.getLabel()); // and its label from the list command
         }
     }
 
     /**
      * @param dictionary to get record to add
+     * @param labels     prefix index the label of the record is added to
      * @param command    label name to add record
      */
-    private static void addCommand(BSTDictionary dictionary, String command) throws DictionaryException {
+    private static void addCommand(BSTDictionaryADT dictionary, PrefixIndex labels, String command)
+            throws DictionaryException {
         // Extract the components from the command
         String[] parts = command.split(" ");
 
@@ -455,36 +467,46 @@ public class Interface {
             // Create a new record and insert it into the dictionary
             Record newRecord = new Record(key, data);
             dictionary.put(newRecord);
+            labels.add(key.getLabel()); // and list its label from now on
         }
     }
 
     /**
-     * @param labelList list of labels in BSTDictionary
-     * @param command   //prefix inputted
+     * @param labels  prefix index of the labels in BSTDictionary
+     * @param command //prefix inputted and optional largest number of labels
      * 
-     *                  The listCommand method takes a list with all the labels
-     *                  of all the items in the BSTDictionary and then given the
-     *                  user prefix input, prints all the labels that start with
-     *                  that prefix in alphabetical order.
+     *                The listCommand method takes the prefix index of all the
+     *                labels of all the items in the BSTDictionary and then given
+     *                the user prefix input, prints all the labels that start
+     *                with that prefix in alphabetical order, or only the first
+     *                ones with "list prefix limit". Not private so TestDict can
+     *                check what it prints.
      */
-    private static void listCommand(ArrayList<String> labelList, String command) {
+    static void listCommand(PrefixIndex labels, String command) {
         // checks if labels exist in dictionary
-        if (labelList == null) {
+        if (labels == null) {
             return;
         }
 
-        String word = command.substring(5).trim(); // Skip "list" and trim any leading/trailing spaces
-        ArrayList<String> prefixLabels = new ArrayList<>(); // new array to store labels starting with prefix
-
-        // Filter labels that start with the specified word
-        for (String label : labelList) {
-            if (label.startsWith(word)) {
-                prefixLabels.add(label); // add words thats start with prefix to list
+        // Skip "list" and split the prefix from the optional limit
+        String[] parts = command.length() > 5 ? command.substring(5).trim().split(" +") : new String[] { "" };
+        String word = parts[0].toLowerCase(); // labels are stored in lowercase like the keys
+        int limit = Integer.MAX_VALUE; // largest number of labels to print
+        if (parts.length > 1) {
+            try {
+                limit = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid list command. Format: list prefix [limit]");
+                return;
             }
         }
 
-        // Sort the prefix labels alphabetically
-        Collections.sort(prefixLabels);
+        // the index gives the labels starting with the prefix already in alphabetical order
+        ArrayList<String> prefixLabels = new ArrayList<>();
+        Iterator<String> matches = labels.startingWith(word);
+        while (matches.hasNext() && prefixLabels.size() < limit) {
+            prefixLabels.add(matches.next());
+        }
 
         // Check if any labels were found
         if (prefixLabels.isEmpty()) { // prints message if no labels starting with prefix exist
@@ -499,7 +521,7 @@ public class Interface {
      * @param dictionary to find the smallest record in the BSTDictionary
      * @throws DictionaryException
      */
-    private static void firstCommand(BSTDictionary dictionary) throws DictionaryException {
+    private static void firstCommand(BSTDictionaryADT dictionary) throws DictionaryException {
 
         Record smallestRecord = dictionary.smallest(); // Get the record with the smallest key
 
@@ -526,7 +548,7 @@ public class Interface {
      * @param dictionary to find the largest record in the BSTDictionary
      * @throws DictionaryException
      */
-    private static void lastCommand(BSTDictionary dictionary) throws DictionaryException {
+    private static void lastCommand(BSTDictionaryADT dictionary) throws DictionaryException {
 
         Record largestRecord = dictionary.largest(); // Get the record with the smallest key
 
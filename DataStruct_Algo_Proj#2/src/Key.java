@@ -3,6 +3,12 @@
  * tree. In the Interface class the Key class is used to get the label and
  * type of the data stored in text files.
  * 
+ * The first PREFIX_CHARS characters of the label and the type are also packed
+ * into one long, ordered the same way as the keys, so most comparisons in a
+ * tree descent are a single compare of two longs. Only keys whose packed
+ * values are equal and do not hold the whole key are compared on the full
+ * label.
+ * 
  * @author Arya Zarei
  * 2210B Assignment 4
  */
@@ -10,6 +16,10 @@
 public class Key {
     private String label; // private label instance variable
     private int type; // private type instance variable
+    private long packed; // first characters of the label and the type, see pack
+
+    private static final int PREFIX_CHARS = 7; // characters of the label packed, one byte each
+    private static final int PARTIAL = 0xFF; // low byte of a packed key that does not hold the whole key
 
     /**
      * @param theLabel initializes key label
@@ -18,6 +28,31 @@ public class Key {
     public Key(String theLabel, int theType) {
         this.label = theLabel.toLowerCase(); // Convert label to lowercase (case in-sensitive)
         this.type = theType;
+        this.packed = pack(label, theType);
+    }
+
+    /**
+     * @return the first PREFIX_CHARS characters of label as big-endian bytes,
+     *         each character c stored as c + 1 so a shorter label packs smaller,
+     *         followed by a byte with the type, or PARTIAL if the label is
+     *         longer, has a character above 253 or the type does not fit in the
+     *         byte. Packing stops after a character above 253, as those all
+     *         store 255.
+     */
+    private static long pack(String label, int type) {
+        long prefix = 0;
+        boolean whole = label.length() <= PREFIX_CHARS; // the bytes hold the whole label
+        for (int i = 0; i < PREFIX_CHARS; i++) {
+            int c = i < label.length() ? label.charAt(i) : -1; // -1 stores 0 past the end
+            prefix = prefix << 8 | Math.min(c + 1, 255);
+            if (c >= 254) {
+                whole = false;
+                prefix <<= 8 * (PREFIX_CHARS - 1 - i); // the bytes after it say nothing
+                break;
+            }
+        }
+        boolean typeFits = type >= 0 && type < PARTIAL;
+        return prefix << 8 | (whole && typeFits ? type : PARTIAL);
     }
 
     public String getLabel() {
@@ -36,6 +71,18 @@ public class Key {
      * object is larger than k
      */
     public int compareTo(Key k) {
+        if (this.packed != k.packed) {
+            // Different label prefixes decide the order without looking at the labels
+            int prefixComparison = Long.compareUnsigned(this.packed >>> 8, k.packed >>> 8);
+            if (prefixComparison != 0) {
+                return prefixComparison;
+            }
+        }
+        if ((this.packed & PARTIAL) != PARTIAL && (k.packed & PARTIAL) != PARTIAL) {
+            // Both packed values hold the whole key: same label, compare types
+            return Integer.compare(this.type, k.type);
+        }
+
         // Compare labels lexicographically
         int labelComparison = this.label.compareTo(k.getLabel());
 
@@ -0,0 +1,250 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The PrefixIndex class keeps the labels of the dictionary in a radix trie so
+ * the list command can find the labels starting with a prefix without scanning
+ * and sorting all of them. Each edge of the trie holds a string instead of a
+ * single character, and the children of a node are kept sorted by their first
+ * character, so walking the trie in order gives the labels in alphabetical
+ * order. A label added more than once is counted and listed once per add.
+ *
+ * @author Arya Zarei
+ *         2210B Assignment 4
+ */
+public class PrefixIndex {
+    private Node root; // root of the trie, its edge is the empty string
+    private int size; // number of labels in the index, counting repeats
+
+    public PrefixIndex() {
+        this.root = new Node("");
+    }
+
+    /**
+     * @param label label to add, a label already in the index is counted again
+     */
+    public void add(String label) {
+        Node current = root;
+        int i = 0; // characters of label matched so far
+
+        while (i < label.length()) {
+            int index = current.find(label.charAt(i));
+
+            if (index < 0) { // no edge starts with the next character, add a new leaf
+                current.insertChild(-index - 1, new Node(label.substring(i)));
+                current = current.children[-index - 1];
+                i = label.length();
+            }
+
+            else {
+                Node child = current.children[index];
+                int common = commonLength(child.edge, label, i);
+
+                if (common < child.edge.length()) {
+                    // the label leaves the edge in its middle, split the edge there
+                    Node middle = new Node(child.edge.substring(0, common));
+                    child.edge = child.edge.substring(common);
+                    middle.insertChild(0, child);
+                    current.children[index] = middle;
+                    child = middle;
+                }
+                current = child;
+                i += common;
+            }
+        }
+        current.count++;
+        size++;
+    }
+
+    /**
+     * @param label label to remove, one of its adds is undone
+     * @return false if the label is not in the index
+     */
+    public boolean remove(String label) {
+        Node parent = null, current = root;
+        int i = 0; // characters of label matched so far
+
+        while (i < label.length()) {
+            int index = current.find(label.charAt(i));
+            if (index < 0 || !label.startsWith(current.children[index].edge, i)) {
+                return false; // the label leaves the trie
+            }
+            parent = current;
+            current = current.children[index];
+            i += current.edge.length();
+        }
+        if (current.count == 0) {
+            return false; // only a prefix of other labels
+        }
+        current.count--;
+        size--;
+
+        if (current.count == 0 && parent != null) {
+            if (current.childCount == 0) {
+                parent.removeChild(parent.find(current.edge.charAt(0))); // nothing below, drop the node
+                if (parent != root && parent.count == 0 && parent.childCount == 1) {
+                    parent.mergeChild();
+                }
+            } else if (current.childCount == 1) {
+                current.mergeChild(); // node only joins two edges now
+            }
+        }
+        return true;
+    }
+
+    // returns the number of labels in the index, counting repeats
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param prefix start of the labels to list
+     * @return the labels starting with prefix in alphabetical order, found one at
+     *         a time as the iterator is used so a caller that stops early does
+     *         not pay for the rest
+     */
+    public Iterator<String> startingWith(String prefix) {
+        Node current = root;
+        String path = ""; // label of current
+        int i = 0; // characters of prefix matched so far
+
+        while (i < prefix.length()) {
+            int index = current.find(prefix.charAt(i));
+            if (index < 0) {
+                return new LabelIterator(null, null); // no label starts with the prefix
+            }
+            Node child = current.children[index];
+            int common = commonLength(child.edge, prefix, i);
+
+            if (i + common < prefix.length() && common < child.edge.length()) {
+                return new LabelIterator(null, null); // the prefix leaves the edge in its middle
+            }
+            current = child;
+            path += child.edge;
+            i += child.edge.length(); // the prefix may end inside the edge, its whole subtree matches
+        }
+        return new LabelIterator(current, path);
+    }
+
+    // returns how many characters of edge match label starting at index start
+    private static int commonLength(String edge, String label, int start) {
+        int length = 0;
+        while (length < edge.length() && start + length < label.length()
+                && edge.charAt(length) == label.charAt(start + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    /*
+     * A node of the trie: the edge leading to it, the number of times the label
+     * ending at it was added and its children sorted by the first character of
+     * their edge
+     */
+    private static class Node {
+        private String edge; // characters on the edge from the parent
+        private int count; // times the label ending here was added, 0 if none
+        private Node[] children = new Node[2]; // children sorted by first character of their edge
+        private int childCount; // number of children
+
+        private Node(String edge) {
+            this.edge = edge;
+        }
+
+        /**
+         * @return index of the child whose edge starts with c, or (-insertion
+         *         point - 1) if there is none
+         */
+        private int find(char c) {
+            int low = 0, high = childCount - 1;
+            while (low <= high) { // binary search of the sorted children
+                int middle = (low + high) >>> 1;
+                char first = children[middle].edge.charAt(0);
+                if (first < c) {
+                    low = middle + 1;
+                } else if (first > c) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        private void insertChild(int index, Node child) {
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, 2 * childCount);
+            }
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            children[index] = child;
+            childCount++;
+        }
+
+        private void removeChild(int index) {
+            System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+            children[--childCount] = null;
+        }
+
+        // joins the only child into this node, which holds no label
+        private void mergeChild() {
+            Node child = children[0];
+            edge = edge + child.edge;
+            count = child.count;
+            children = child.children;
+            childCount = child.childCount;
+        }
+    }
+
+    /*
+     * Walks a subtree in order with an explicit stack, a node's own label
+     * comes before the labels below it
+     */
+    private static class LabelIterator implements Iterator<String> {
+        private ArrayDeque<Node> nodes = new ArrayDeque<>(); // subtrees still to walk
+        private ArrayDeque<String> paths = new ArrayDeque<>(); // label of each of those nodes
+        private String next; // next label to return, null when done
+        private int repeats; // times next is still to be returned
+
+        private LabelIterator(Node start, String path) {
+            if (start != null) {
+                nodes.push(start);
+                paths.push(path);
+            }
+            advance();
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public String next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String label = next;
+            if (--repeats == 0) {
+                advance();
+            }
+            return label;
+        }
+
+        // moves to the next node holding a label
+        private void advance() {
+            next = null;
+            while (next == null && !nodes.isEmpty()) {
+                Node node = nodes.pop();
+                String path = paths.pop();
+                for (int i = node.childCount - 1; i >= 0; i--) { // last child is walked last
+                    nodes.push(node.children[i]);
+                    paths.push(path + node.children[i].edge);
+                }
+                if (node.count > 0) {
+                    next = path;
+                    repeats = node.count;
+                }
+            }
+        }
+    }
+}
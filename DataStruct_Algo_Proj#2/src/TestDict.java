@@ -1,4 +1,9 @@
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 public class TestDict {
 
@@ -256,5 +261,285 @@ public class TestDict {
 		} catch (IOException e) {
 			System.out.println("Cannot open file: large.txt");
 		}
+
+		// Add labels that split the edges of the prefix index and list them in order
+		if (alltests || test == 17)
+			try {
+				PrefixIndex index = new PrefixIndex();
+				String added[] = { "romane", "romanus", "romulus", "rubens", "ruber", "rubicon", "rubicundus", "rom",
+						"ruber", "r" };
+				for (String label : added)
+					index.add(label);
+				String all = words(index.startingWith(""));
+				if (all.equals("r rom romane romanus romulus rubens ruber ruber rubicon rubicundus ")
+						&& index.size() == 10)
+					System.out.println("Test 17 passed");
+				else
+					System.out.println("Test 17 failed");
+			} catch (Exception e) {
+				System.out.println("Test 17 failed");
+			}
+
+		// List the labels of a prefix ending inside an edge and of prefixes no label has
+		if (alltests || test == 18)
+			try {
+				PrefixIndex index = new PrefixIndex();
+				index.add("romane");
+				index.add("romanus");
+				index.add("romulus");
+				String inside = words(index.startingWith("roma")); // the edge below "rom" is "an"
+				String whole = words(index.startingWith("romanus"));
+				String none = words(index.startingWith("romb")) + words(index.startingWith("romanusx"))
+						+ words(index.startingWith("x"));
+				if (inside.equals("romane romanus ") && whole.equals("romanus ") && none.equals(""))
+					System.out.println("Test 18 passed");
+				else
+					System.out.println("Test 18 failed");
+			} catch (Exception e) {
+				System.out.println("Test 18 failed");
+			}
+
+		// Remove labels from the prefix index, joining the edges left with one child
+		if (alltests || test == 19)
+			try {
+				PrefixIndex index = new PrefixIndex();
+				String added[] = { "romane", "romanus", "romulus", "rom", "rom" };
+				for (String label : added)
+					index.add(label);
+				boolean removed = index.remove("romane") && index.remove("rom") && !index.remove("roman")
+						&& !index.remove("ro") && !index.remove("romanex") && !index.remove("romane");
+				String afterRemoves = words(index.startingWith("romanu")); // "an" and "us" are one edge now
+				boolean last = index.remove("rom") && index.remove("romulus") && index.remove("romanus");
+				if (removed && afterRemoves.equals("romanus ") && last && index.size() == 0
+						&& words(index.startingWith("")).equals(""))
+					System.out.println("Test 19 passed");
+				else
+					System.out.println("Test 19 failed");
+			} catch (Exception e) {
+				System.out.println("Test 19 failed");
+			}
+
+		// Parse the prefix and the limit of the list command
+		if (alltests || test == 20)
+			try {
+				PrefixIndex index = new PrefixIndex();
+				String added[] = { "abc", "ab", "abd", "b" };
+				for (String label : added)
+					index.add(label);
+				PrintStream console = System.out;
+				ByteArrayOutputStream printed = new ByteArrayOutputStream();
+				System.setOut(new PrintStream(printed, true));
+				try {
+					Interface.listCommand(index, "list AB 2");
+					Interface.listCommand(index, "list   ab");
+					Interface.listCommand(index, "list");
+					Interface.listCommand(index, "list ab two");
+					Interface.listCommand(index, "list zz");
+				} finally {
+					System.setOut(console);
+				}
+				String expected = "ab, abc\nab, abc, abd\nab, abc, abd, b\n"
+						+ "Invalid list command. Format: list prefix [limit]\n"
+						+ "No labels attributes in the ordered dictionary start with prefix zz\n";
+				if (printed.toString().replace("\r\n", "\n").equals(expected))
+					System.out.println("Test 20 passed");
+				else
+					System.out.println("Test 20 failed");
+			} catch (Exception e) {
+				System.out.println("Test 20 failed");
+			}
+
+		// Test the bounds of the range method
+		if (alltests || test == 21)
+			try {
+				dictionary = new BSTDictionary();
+				for (int i = 0; i < 5; ++i)
+					dictionary.put(records[i]);
+				// class computer course four homework
+				String from = labels(dictionary.range(keys[3], null)); // fromKey is included
+				String to = labels(dictionary.range(null, keys[1])); // toKey is not
+				String inner = labels(dictionary.range(new Key("co", TEXT), new Key("g", TEXT)));
+				String none = labels(dictionary.range(keys[1], keys[1]));
+				if (from.equals("computer course four homework ") && to.equals("class computer ")
+						&& inner.equals("computer course four ") && none.equals(""))
+					System.out.println("Test 21 passed");
+				else
+					System.out.println("Test 21 failed");
+			} catch (Exception e) {
+				System.out.println("Test 21 failed");
+			}
+
+		// Bulk load records in any order and find them all in order
+		if (alltests || test == 22)
+			try {
+				List<Record> batch = new ArrayList<>();
+				for (int i = 0; i < 1000; ++i)
+					batch.add(new Record(new Key(String.format("word%04d", (i * 7) % 1000), TEXT), "data" + i));
+				dictionary = new BSTDictionary();
+				dictionary.putAll(batch);
+				boolean found = true;
+				for (Record record : batch)
+					found = found && dictionary.get(record.getKey()) == record;
+				Iterator<Record> all = dictionary.range(null, null);
+				for (int i = 0; i < 1000; ++i)
+					found = found && all.next().getKey().getLabel().equals(String.format("word%04d", i));
+				if (found && !all.hasNext())
+					System.out.println("Test 22 passed");
+				else
+					System.out.println("Test 22 failed");
+			} catch (Exception e) {
+				System.out.println("Test 22 failed");
+			}
+
+		// Bulk load a batch that repeats a key, nothing may be added
+		if (alltests || test == 23)
+			try {
+				dictionary = new BSTDictionary();
+				dictionary.putAll(Arrays.asList(records[0], records[1], records[0]));
+				System.out.println("Test 23 failed");
+			} catch (DictionaryException e) {
+				if (dictionary.smallest() == null)
+					System.out.println("Test 23 passed");
+				else
+					System.out.println("Test 23 failed");
+			} catch (Exception e) {
+				System.out.println("Test 23 failed");
+			}
+
+		// The array based dictionary has to answer like BSTDictionary
+		if (alltests || test == 24)
+			try {
+				BSTDictionary nodes = new BSTDictionary();
+				CompactBSTDictionary arrays = new CompactBSTDictionary();
+				Random random = new Random(2210);
+				boolean same = true;
+				for (int i = 0; i < 20000 && same; ++i) {
+					Key k = new Key("w" + random.nextInt(500), 1 + random.nextInt(3));
+					int op = random.nextInt(4);
+					if (op == 0 || op == 1) {
+						boolean nodesThrew = false, arraysThrew = false;
+						try {
+							if (op == 0)
+								nodes.put(new Record(k, "data"));
+							else
+								nodes.remove(k);
+						} catch (DictionaryException e) {
+							nodesThrew = true;
+						}
+						try {
+							if (op == 0)
+								arrays.put(new Record(k, "data"));
+							else
+								arrays.remove(k);
+						} catch (DictionaryException e) {
+							arraysThrew = true;
+						}
+						same = nodesThrew == arraysThrew;
+					} else {
+						same = label(nodes.get(k)).equals(label(arrays.get(k)))
+								&& label(nodes.successor(k)).equals(label(arrays.successor(k)))
+								&& label(nodes.predecessor(k)).equals(label(arrays.predecessor(k)));
+					}
+				}
+				if (same && labels(nodes.range(null, null)).equals(labels(arrays.range(null, null))))
+					System.out.println("Test 24 passed");
+				else
+					System.out.println("Test 24 failed");
+			} catch (Exception e) {
+				System.out.println("Test 24 failed");
+			}
+
+		// Keys are ordered by label and then type, whatever part of them is packed
+		if (alltests || test == 25)
+			try {
+				String labels[] = { "", "a", "ab", "abcdefg", "abcdefga", "abcdefgb", "abcdefgh", "abcdefz", "b",
+						"zzzzzzzzzz", "\u00fe", "\u00ffa", "\u00ffb", "\u4e00" };
+				int types[] = { -1, 0, 1, 8, 254, 255, 300 };
+				boolean ordered = true;
+				for (String labelA : labels)
+					for (int typeA : types)
+						for (String labelB : labels)
+							for (int typeB : types) {
+								int expected = labelA.compareTo(labelB) != 0 ? labelA.compareTo(labelB)
+										: Integer.compare(typeA, typeB);
+								int found = new Key(labelA, typeA).compareTo(new Key(labelB, typeB));
+								ordered = ordered && Integer.signum(found) == Integer.signum(expected);
+							}
+				if (ordered)
+					System.out.println("Test 25 passed");
+				else
+					System.out.println("Test 25 failed");
+			} catch (Exception e) {
+				System.out.println("Test 25 failed");
+			}
+
+		// Bulk load a batch with a key already in the dictionary, nothing may be added
+		if (alltests || test == 26)
+			try {
+				dictionary = new BSTDictionary();
+				dictionary.put(records[2]);
+				dictionary.putAll(Arrays.asList(records[0], records[2], records[4]));
+				System.out.println("Test 26 failed");
+			} catch (DictionaryException e) {
+				if (dictionary.get(keys[0]) == null && dictionary.get(keys[4]) == null)
+					System.out.println("Test 26 passed");
+				else
+					System.out.println("Test 26 failed");
+			} catch (Exception e) {
+				System.out.println("Test 26 failed");
+			}
+
+		// Insert words in sorted order, the AVL tree has to stay balanced
+		if (alltests || test == 27)
+			try {
+				BinarySearchTree tree = new BinarySearchTree();
+				for (int i = 0; i < 1023; ++i)
+					tree.insert(tree.getRoot(), new Record(new Key(String.format("word%04d", i), TEXT), "data"));
+				// an AVL tree of 1023 records is at most 1.44 log2(1025) levels high
+				if (tree.getRoot().getHeight() <= 14)
+					System.out.println("Test 27 passed");
+				else
+					System.out.println("Test 27 failed");
+			} catch (Exception e) {
+				System.out.println("Test 27 failed");
+			}
+
+		// Remove the last record of the dictionary and use it again
+		if (alltests || test == 28)
+			try {
+				dictionary = new BSTDictionary();
+				dictionary.put(records[0]);
+				dictionary.remove(keys[0]);
+				boolean empty = dictionary.get(keys[0]) == null && dictionary.smallest() == null
+						&& dictionary.largest() == null;
+				dictionary.put(records[0]);
+				if (empty && dictionary.get(keys[0]) == records[0])
+					System.out.println("Test 28 passed");
+				else
+					System.out.println("Test 28 failed");
+			} catch (Exception e) {
+				System.out.println("Test 28 failed");
+			}
+	}
+
+	// returns the label of a record, "null" for no record
+	private static String label(Record record) {
+		return record == null ? "null" : record.getKey().getLabel() + "," + record.getKey().getType();
+	}
+
+	// returns the labels of a range of records, each followed by a space
+	private static String labels(Iterator<Record> range) {
+		String labels = "";
+		while (range.hasNext())
+			labels += range.next().getKey().getLabel() + " ";
+		return labels;
+	}
+
+	// returns the labels listed by the prefix index, each followed by a space
+	private static String words(Iterator<String> listed) {
+		String words = "";
+		while (listed.hasNext())
+			words += listed.next() + " ";
+		return words;
 	}
 }